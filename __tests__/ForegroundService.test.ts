@@ -20,7 +20,18 @@ jest.mock('react-native', () => ({
       requestPermission: jest.fn(() => Promise.resolve(true)),
       checkNotificationPermission: jest.fn(() => Promise.resolve(true)),
       checkBatteryOptimization: jest.fn(() => Promise.resolve(true)),
-      getServiceStatus: jest.fn(() => Promise.resolve({ isRunning: false })),
+      getServiceStatus: jest.fn(() => Promise.resolve({
+        isRunning: true,
+        state: 'foreground',
+        startTime: 1000,
+        uptime: 500,
+        notificationId: 1,
+        serviceCount: 2,
+        sessions: [
+          { taskName: 'sync', notificationId: 1 },
+          { taskName: 'upload', notificationId: 2 },
+        ],
+      })),
       getServiceMetrics: jest.fn(() => Promise.resolve({
         uptime: 0,
         tasksExecuted: 0,
@@ -29,10 +40,40 @@ jest.mock('react-native', () => ({
         memoryUsage: 0,
         batteryImpact: 'low'
       })),
+      getNotificationUpdateStats: jest.fn(() => Promise.resolve({
+        submitted: 0,
+        posted: 0,
+        coalesced: 0,
+        dropped: 0,
+        sent: 0,
+        skipped: 0
+      })),
+      getRetryState: jest.fn(() => Promise.resolve({
+        breakers: { api: { state: 'open', consecutiveFailures: 5, failureThreshold: 5, trips: 1 } },
+        tasks: {},
+      })),
       requestBatteryOptimizationExemption: jest.fn(() => Promise.resolve(true)),
-      registerForegroundTask: jest.fn(),
+      registerForegroundTask: jest.fn(() => Promise.resolve()),
       runTask: jest.fn(() => Promise.resolve()),
+      stopTask: jest.fn(() => Promise.resolve()),
       cancelNotification: jest.fn(() => Promise.resolve()),
+      isServiceRunningSync: jest.fn(() => true),
+      getServiceCountSync: jest.fn(() => 2),
+      getServiceStatusSync: jest.fn(() => ({ isRunning: true, state: 'foreground', serviceCount: 2 })),
+      checkPermissionSync: jest.fn(() => true),
+      openProgressChannelSync: jest.fn(() => 3),
+      writeProgressSync: jest.fn(() => true),
+      closeProgressChannelSync: jest.fn(() => true),
+      enqueueWork: jest.fn(() => Promise.resolve('work-1')),
+      enqueueWorkChain: jest.fn(() => Promise.resolve(['work-1', 'work-2'])),
+      cancelWork: jest.fn(() => Promise.resolve()),
+      getWorkInfo: jest.fn(() => Promise.resolve([{ id: 'work-1', state: 'enqueued', runAttemptCount: 0 }])),
+      createPayload: jest.fn(() => Promise.resolve({ handle: 'ab12', uri: 'file:///data/payloads/ab12', size: 5 })),
+      getPayloadInfo: jest.fn(() => Promise.resolve({ handle: 'ab12', uri: 'file:///data/payloads/ab12', size: 5 })),
+      readPayload: jest.fn(() => Promise.resolve('hello')),
+      releasePayload: jest.fn(() => Promise.resolve(true)),
+      publishTaskResult: jest.fn(() => Promise.resolve()),
+      executeBatch: jest.fn((ops: any[]) => Promise.resolve(ops.map(() => ({ ok: true })))),
     },
   },
   PermissionsAndroid: {
@@ -74,6 +115,7 @@ jest.mock('../src/TaskManager', () => ({
     getAllTasks: jest.fn(() => ({})),
     getTaskStatus: jest.fn(() => null),
     removeAllTasks: jest.fn(),
+    setMaxConcurrency: jest.fn(),
   },
 }));
 
@@ -172,7 +214,15 @@ describe('ForegroundService', () => {
       
       await ForegroundService.stopService();
       
-      expect(mockStopService).toHaveBeenCalled();
+      expect(mockStopService).toHaveBeenCalledWith(null);
+    });
+
+    it('should stop a single logical service by taskName', async () => {
+      const mockStopService = require('react-native').NativeModules.RNForegroundService.stopService;
+      
+      await ForegroundService.stopService('upload');
+      
+      expect(mockStopService).toHaveBeenCalledWith('upload');
     });
 
     it('should check if service is running', async () => {
@@ -180,19 +230,29 @@ describe('ForegroundService', () => {
       expect(result).toBe(false);
     });
 
-    it('should get service status', async () => {
+    it('should get service status from native', async () => {
       const status = await ForegroundService.getServiceStatus();
-      expect(status).toEqual({ 
-        isRunning: false,
+      expect(status).toEqual({
+        isRunning: true,
+        state: 'foreground',
+        startTime: 1000,
+        uptime: 500,
         notificationId: 1,
+        serviceCount: 2,
+        sessions: [
+          { taskName: 'sync', notificationId: 1 },
+          { taskName: 'upload', notificationId: 2 },
+        ],
         taskCount: 0
       });
     });
   });
 
   describe('enhanced features', () => {
-    it('should get service metrics', async () => {
+    it('should get service metrics from native', async () => {
       const metrics = await ForegroundService.getServiceMetrics();
+      expect(require('react-native').NativeModules.RNForegroundService.getServiceMetrics)
+        .toHaveBeenCalled();
       expect(metrics).toEqual({
         uptime: 0,
         tasksExecuted: 0,
@@ -203,6 +263,24 @@ describe('ForegroundService', () => {
       });
     });
 
+    it('should get notification update stats', async () => {
+      const stats = await ForegroundService.getNotificationUpdateStats();
+      expect(stats).toEqual({
+        submitted: 0,
+        posted: 0,
+        coalesced: 0,
+        dropped: 0,
+        sent: 0,
+        skipped: 0,
+      });
+    });
+
+    it('should expose the native retry state', async () => {
+      const state = await ForegroundService.getRetryState();
+      expect(state.breakers.api.state).toBe('open');
+      expect(state.tasks).toEqual({});
+    });
+
     it('should stop all services', async () => {
       const mockStopServiceAll = require('react-native').NativeModules.RNForegroundService.stopServiceAll;
       
@@ -234,6 +312,8 @@ describe('ForegroundService', () => {
       
       expect(require('react-native').AppRegistry.registerHeadlessTask)
         .toHaveBeenCalledWith(taskName, expect.any(Function));
+      expect(require('react-native').NativeModules.RNForegroundService.registerForegroundTask)
+        .toHaveBeenCalledWith(taskName);
     });
 
     it('should run task', async () => {
@@ -249,6 +329,13 @@ describe('ForegroundService', () => {
         .toHaveBeenCalledWith(taskConfig);
     });
 
+    it('should stop task', async () => {
+      await ForegroundService.stopTask('testTask');
+      
+      expect(require('react-native').NativeModules.RNForegroundService.stopTask)
+        .toHaveBeenCalledWith('testTask');
+    });
+
     it('should cancel notification', async () => {
       const notificationId = 123;
       
@@ -258,6 +345,85 @@ describe('ForegroundService', () => {
         .toHaveBeenCalledWith(notificationId);
     });
 
+    it('should enqueue durable work', async () => {
+      const config = {
+        taskName: 'sync',
+        uniqueName: 'nightly-sync',
+        constraints: { network: 'unmetered' as const, charging: true },
+        data: { since: 0 },
+      };
+
+      const id = await ForegroundService.enqueueWork(config);
+
+      expect(id).toBe('work-1');
+      expect(require('react-native').NativeModules.RNForegroundService.enqueueWork)
+        .toHaveBeenCalledWith(config);
+    });
+
+    it('should enqueue a work chain under one unique name', async () => {
+      const ids = await ForegroundService.enqueueWorkChain('upload', [
+        { taskName: 'compress' },
+        { taskName: 'upload' },
+      ]);
+
+      expect(ids).toEqual(['work-1', 'work-2']);
+      expect(require('react-native').NativeModules.RNForegroundService.enqueueWorkChain)
+        .toHaveBeenCalledWith('upload', [{ taskName: 'compress' }, { taskName: 'upload' }], null);
+    });
+
+    it('should store a payload natively and pass only its handle to runTask', async () => {
+      const native = require('react-native').NativeModules.RNForegroundService;
+      const payload = await ForegroundService.createPayload('hello');
+
+      expect(payload).toEqual({ handle: 'ab12', uri: 'file:///data/payloads/ab12', size: 5 });
+      await ForegroundService.runTask({ taskName: 'import', payload: payload.handle });
+      expect(native.runTask).toHaveBeenCalledWith({ taskName: 'import', payload: 'ab12' });
+      expect(await ForegroundService.readPayload(payload.handle)).toBe('hello');
+      expect(await ForegroundService.releasePayload(payload.handle)).toBe(true);
+    });
+
+    it('should publish a task result by handle', async () => {
+      const native = require('react-native').NativeModules.RNForegroundService;
+
+      await ForegroundService.publishTaskResult('import', 'ab12');
+      expect(native.publishTaskResult).toHaveBeenCalledWith('import', 'ab12');
+    });
+
+    it('should answer status reads synchronously', () => {
+      expect(ForegroundService.isServiceRunningSync()).toBe(true);
+      expect(ForegroundService.getServiceCountSync()).toBe(2);
+      expect(ForegroundService.checkPermissionSync()).toBe(true);
+      expect(ForegroundService.getServiceStatusSync()).toEqual({
+        isRunning: true,
+        state: 'foreground',
+        serviceCount: 2,
+      });
+    });
+
+    it('should write progress through a channel without a map', () => {
+      const native = require('react-native').NativeModules.RNForegroundService;
+      const channel = ForegroundService.openProgressChannelSync('upload');
+
+      expect(channel).toBe(3);
+      expect(ForegroundService.writeProgressSync(channel, 412, 1000)).toBe(true);
+      expect(native.writeProgressSync).toHaveBeenCalledWith(3, 412, 1000);
+      ForegroundService.closeProgressChannelSync(channel);
+      expect(native.closeProgressChannelSync).toHaveBeenCalledWith(3);
+    });
+
+    it('should execute a batch of operations in one call', async () => {
+      const ops = [
+        { op: 'start' as const, options: { taskName: 'sync', taskTitle: 'Sync', taskDesc: 'Syncing', serviceType: 'dataSync' as const } },
+        { op: 'cancel' as const, notificationId: 7 },
+      ];
+
+      const results = await ForegroundService.executeBatch(ops);
+
+      expect(require('react-native').NativeModules.RNForegroundService.executeBatch)
+        .toHaveBeenCalledWith(ops);
+      expect(results).toEqual([{ ok: true }, { ok: true }]);
+    });
+
     it('should handle event listeners', () => {
       const listener = {
         onServiceStart: jest.fn(),
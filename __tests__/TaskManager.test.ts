@@ -0,0 +1,207 @@
+import { TaskManagerClass } from '../src/TaskManager';
+
+const mockListeners: Record<string, (event: any) => void> = {};
+
+// Mock React Native modules
+jest.mock('react-native', () => ({
+  Platform: {
+    OS: 'android',
+    Version: 34,
+  },
+  NativeModules: {
+    RNForegroundService: {
+      executeBatch: jest.fn((ops: any[]) => Promise.resolve(ops.map(() => ({ ok: true })))),
+      completeTask: jest.fn(() => Promise.resolve(null)),
+      releaseTask: jest.fn(() => Promise.resolve()),
+    },
+  },
+  NativeEventEmitter: jest.fn(() => ({
+    addListener: jest.fn((event: string, callback: (event: any) => void) => {
+      mockListeners[event] = callback;
+      return { remove: jest.fn() };
+    }),
+  })),
+  AppRegistry: {
+    registerHeadlessTask: jest.fn(),
+  },
+}));
+
+const flushPromises = () => new Promise(resolve => setImmediate(resolve));
+
+describe('TaskManager', () => {
+  const native = () => require('react-native').NativeModules.RNForegroundService;
+
+  beforeEach(() => {
+    jest.clearAllMocks();
+  });
+
+  it('should register tasks with the native scheduler without running a JS timer', async () => {
+    const setIntervalSpy = jest.spyOn(global, 'setInterval');
+    const manager = new TaskManagerClass();
+
+    const taskId = manager.addTask(jest.fn(), { taskId: 'sync', delay: 1000, onLoop: true });
+    await flushPromises();
+
+    expect(taskId).toBe('sync');
+    expect(native().executeBatch).toHaveBeenCalledWith([
+      {
+        op: 'addTask',
+        config: {
+          taskId: 'sync',
+          delay: 1000,
+          onLoop: true,
+          priority: 'normal',
+          retryCount: 0,
+          timeout: 30000,
+        },
+      },
+    ]);
+    expect(setIntervalSpy).not.toHaveBeenCalled();
+    setIntervalSpy.mockRestore();
+  });
+
+  it('should send operations issued in the same tick as one batch', async () => {
+    const manager = new TaskManagerClass();
+    manager.addTask(jest.fn(), { taskId: 'upload', delay: 0, onLoop: false });
+
+    manager.pauseTask('upload');
+    expect(manager.getTaskStatus('upload')?.status).toBe('paused');
+
+    manager.resumeTask('upload');
+    expect(manager.getTaskStatus('upload')?.status).toBe('pending');
+
+    manager.removeTask('upload');
+    expect(manager.getTaskStatus('upload')).toBeNull();
+
+    expect(native().executeBatch).not.toHaveBeenCalled();
+    await flushPromises();
+
+    expect(native().executeBatch).toHaveBeenCalledTimes(1);
+    expect(native().executeBatch.mock.calls[0][0].map((op: any) => op.op)).toEqual([
+      'addTask',
+      'pauseTask',
+      'resumeTask',
+      'removeTask',
+    ]);
+  });
+
+  it('should run the task when native reports it due and report the outcome', async () => {
+    const manager = new TaskManagerClass();
+    const taskFn = jest.fn(() => Promise.resolve());
+    const onSuccess = jest.fn();
+    native().completeTask.mockResolvedValueOnce({
+      taskId: 'poll',
+      status: 'pending',
+      executionCount: 1,
+      nextExecutionTime: 12345,
+    });
+
+    manager.addTask(taskFn, { taskId: 'poll', delay: 500, onLoop: true, onSuccess });
+    mockListeners.onTaskExecute!({ taskId: 'poll', executionCount: 1 });
+    await flushPromises();
+
+    expect(taskFn).toHaveBeenCalled();
+    expect(native().completeTask).toHaveBeenCalledWith('poll', true, 1);
+    expect(onSuccess).toHaveBeenCalled();
+    expect(manager.getTaskStatus('poll')).toEqual({
+      taskId: 'poll',
+      isRunning: false,
+      executionCount: 1,
+      lastExecutionTime: expect.any(Number),
+      nextExecutionTime: 12345,
+      status: 'pending',
+    });
+  });
+
+  it('should run tasks delivered in a batched onEvents emission', async () => {
+    const manager = new TaskManagerClass();
+    const first = jest.fn();
+    const second = jest.fn();
+
+    manager.addTask(first, { taskId: 'first', delay: 0, onLoop: false });
+    manager.addTask(second, { taskId: 'second', delay: 0, onLoop: false });
+    mockListeners.onEvents!({
+      events: [
+        { name: 'onTaskExecute', params: { taskId: 'first', executionCount: 1 } },
+        { name: 'onTaskExecute', params: { taskId: 'second', executionCount: 1 } },
+      ],
+      dropped: 0,
+    });
+    await flushPromises();
+
+    expect(first).toHaveBeenCalled();
+    expect(second).toHaveBeenCalled();
+    expect(native().completeTask).toHaveBeenCalledWith('first', true, 1);
+    expect(native().completeTask).toHaveBeenCalledWith('second', true, 1);
+  });
+
+  it('should call onError once native reports retries exhausted', async () => {
+    const manager = new TaskManagerClass();
+    const onError = jest.fn();
+    native().completeTask.mockResolvedValueOnce({
+      taskId: 'flaky',
+      status: 'failed',
+      executionCount: 1,
+    });
+
+    manager.addTask(() => Promise.reject(new Error('boom')), {
+      taskId: 'flaky',
+      delay: 0,
+      onLoop: false,
+      onError,
+    });
+    mockListeners.onTaskExecute!({ taskId: 'flaky', executionCount: 1 });
+    await flushPromises();
+
+    expect(native().completeTask).toHaveBeenCalledWith('flaky', false, 1);
+    expect(onError).toHaveBeenCalledWith(new Error('boom'));
+    expect(manager.getStats().failedTasks).toBe(1);
+  });
+
+  it('should leave timeouts to native and drop an attempt the watchdog gave up on', async () => {
+    const setTimeoutSpy = jest.spyOn(global, 'setTimeout');
+    const manager = new TaskManagerClass();
+    const onError = jest.fn();
+    let finishTask: () => void = () => {};
+    const taskFn = jest.fn(() => new Promise<void>(resolve => { finishTask = resolve; }));
+
+    manager.addTask(taskFn, { taskId: 'hung', delay: 0, onLoop: false, onError });
+    mockListeners.onTaskExecute!({ taskId: 'hung', executionCount: 1 });
+    await flushPromises();
+    expect(setTimeoutSpy).not.toHaveBeenCalled();
+
+    mockListeners.onTaskTimeout!({
+      taskId: 'hung',
+      attempt: 1,
+      deadline: 'attempt',
+      status: 'failed',
+      executionCount: 1,
+    });
+    expect(onError).toHaveBeenCalledWith(new Error('Task timeout'));
+    expect(manager.getTaskStatus('hung')?.status).toBe('failed');
+
+    // The late result of the abandoned attempt is not reported
+    finishTask();
+    await flushPromises();
+    expect(native().completeTask).not.toHaveBeenCalled();
+    setTimeoutSpy.mockRestore();
+  });
+
+  it('should hand back a dispatch for a task JS has not added yet', async () => {
+    const manager = new TaskManagerClass();
+    manager.addTask(jest.fn(), { taskId: 'other', delay: 1000, onLoop: true });
+    mockListeners.onTaskExecute!({ taskId: 'restored', executionCount: 3 });
+    await flushPromises();
+
+    expect(native().releaseTask).toHaveBeenCalledWith('restored', 3);
+    expect(native().completeTask).not.toHaveBeenCalled();
+  });
+
+  it('should send the concurrency limit to the native dispatcher', async () => {
+    const manager = new TaskManagerClass();
+    manager.setMaxConcurrency(2.5);
+    await flushPromises();
+
+    expect(native().executeBatch).toHaveBeenCalledWith([{ op: 'setMaxConcurrentTasks', limit: 2 }]);
+  });
+});
@@ -0,0 +1,108 @@
+package com.reactnativeforegroundservice;
+
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayDeque;
+
+/**
+ * Process-wide worker for native housekeeping I/O: config snapshot writes and payload
+ * cleanup. One thread at background priority with a bounded queue keeps that disk I/O off
+ * the main, scheduler and JS threads. Tasks do not run here; see {@link TaskScheduler}.
+ */
+final class BackgroundWorker {
+    private static final String TAG = "RNForegroundService";
+
+    private static final int CAPACITY = 128;
+
+    private static BackgroundWorker instance;
+
+    static synchronized BackgroundWorker get() {
+        if (instance == null) {
+            instance = new BackgroundWorker();
+        }
+        return instance;
+    }
+
+    // The worker if something has used it, without starting its thread otherwise
+    @Nullable
+    static synchronized BackgroundWorker peek() {
+        return instance;
+    }
+
+    // The queue and counters are guarded by this lock
+    private final Object lock = new Object();
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>(16);
+    private long completed = 0;
+    private long rejected = 0;
+
+    private BackgroundWorker() {
+        Thread worker = new Thread(this::runWorker, "RNForegroundServiceWorker");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues work. Returns false when the queue is full; the work is not run.
+     */
+    boolean execute(Runnable work) {
+        synchronized (lock) {
+            if (queue.size() >= CAPACITY) {
+                rejected++;
+                return false;
+            }
+            queue.addLast(work);
+            lock.notify();
+            return true;
+        }
+    }
+
+    WritableMap getStats() {
+        synchronized (lock) {
+            return toStats(queue.size(), completed, rejected);
+        }
+    }
+
+    // Stats with every counter at 0, for a worker that was never started
+    static WritableMap getIdleStats() {
+        return toStats(0, 0, 0);
+    }
+
+    private static WritableMap toStats(int queued, long completed, long rejected) {
+        WritableMap stats = Arguments.createMap();
+        stats.putInt("queued", queued);
+        stats.putDouble("completed", completed);
+        stats.putDouble("rejected", rejected);
+        return stats;
+    }
+
+    private void runWorker() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        while (true) {
+            Runnable work;
+            synchronized (lock) {
+                while (queue.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                work = queue.pollFirst();
+            }
+            try {
+                work.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Background work failed", e);
+            }
+            synchronized (lock) {
+                completed++;
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.reactnativeforegroundservice;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Failure breaker shared by the scheduled tasks that name it. It opens after
+ * failureThreshold consecutive failures; while open no retries are dispatched. After
+ * resetTimeout a single trial retry is let through (half-open): success closes the breaker,
+ * failure opens it again. Times are uptime based, like the scheduler's. Guarded by the
+ * scheduler lock.
+ */
+final class CircuitBreaker {
+    static final String STATE_CLOSED = "closed";
+    static final String STATE_OPEN = "open";
+    static final String STATE_HALF_OPEN = "halfOpen";
+
+    final String name;
+    int failureThreshold;
+    long resetTimeout;
+
+    private int consecutiveFailures = 0;
+    private boolean open = false;
+    private long openedAt = 0;
+    private boolean trialInFlight = false;
+    private long trips = 0;
+
+    CircuitBreaker(String name, int failureThreshold, long resetTimeout) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.resetTimeout = resetTimeout;
+    }
+
+    /**
+     * Whether a retry may be dispatched now. In half-open state this claims the one trial.
+     */
+    boolean tryAcquire(long now) {
+        if (!open) {
+            return true;
+        }
+        if (now < openedAt + resetTimeout || trialInFlight) {
+            return false;
+        }
+        trialInFlight = true;
+        return true;
+    }
+
+    // When to check again after tryAcquire refused
+    long getRetryAt(long now) {
+        return open && now < openedAt + resetTimeout ? openedAt + resetTimeout : now + resetTimeout;
+    }
+
+    // The trial ended without an outcome (task paused or removed)
+    void cancelTrial() {
+        trialInFlight = false;
+    }
+
+    void recordSuccess() {
+        consecutiveFailures = 0;
+        open = false;
+        trialInFlight = false;
+    }
+
+    void recordFailure(long now) {
+        consecutiveFailures++;
+        // A failed trial re-opens at once
+        if (trialInFlight || consecutiveFailures >= failureThreshold) {
+            if (!open || trialInFlight) {
+                trips++;
+            }
+            open = true;
+            openedAt = now;
+            trialInFlight = false;
+        }
+    }
+
+    String getState(long now) {
+        if (!open) {
+            return STATE_CLOSED;
+        }
+        return now < openedAt + resetTimeout ? STATE_OPEN : STATE_HALF_OPEN;
+    }
+
+    WritableMap toWritableMap(long now) {
+        WritableMap map = Arguments.createMap();
+        map.putString("state", getState(now));
+        map.putInt("consecutiveFailures", consecutiveFailures);
+        map.putInt("failureThreshold", failureThreshold);
+        map.putDouble("trips", trips);
+        if (open && now < openedAt + resetTimeout) {
+            // Wall-clock time the breaker half-opens, as reported to JS
+            map.putDouble("halfOpenAt", System.currentTimeMillis() + (openedAt + resetTimeout - now));
+        }
+        return map;
+    }
+}
@@ -3,126 +3,571 @@ package com.reactnativeforegroundservice;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.app.Service;
+import android.content.Context;
 import android.content.Intent;
-import android.graphics.Color;
+import android.os.Binder;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import androidx.annotation.Nullable;
-import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 public class ForegroundService extends Service {
     private static final String CHANNEL_ID = "ForegroundServiceChannel";
     private static final int NOTIFICATION_ID = 1;
     
+    private static final String DEFAULT_TASK_NAME = "Task";
+    private static final String SERVICE_DEADLINE_KEY = "service:";
+    // How often {rate} and {eta} are re-filled while progress is stalled
+    private static final long RATE_REFRESH_MS = 1000;
+    
     private NotificationManager notificationManager;
-    private String taskName = "Task";
-    private String taskTitle = "Background Task";
-    private String taskDesc = "Running in background";
-    private String taskIcon = "ic_notification";
-    private String importance = "DEFAULT";
-    private int number = 0;
-    private boolean button = false;
-    private String buttonText = "Stop";
-    private String buttonOnPress = "stop";
-    private boolean setOnlyAlertOnce = false;
-    private String color = "#000000";
-    private int progressMax = 100;
-    private int progressCurr = 0;
-    private boolean progressIndeterminate = false;
+    // Logical services keyed by taskName, in start order; all touched on the main thread only
+    private final Map<String, ServiceSession> sessions = new LinkedHashMap<>();
+    // Session whose notification is attached to startForeground
+    @Nullable
+    private ServiceSession foregroundSession;
+    private int nextNotificationId = NOTIFICATION_ID;
+    private boolean isForeground = false;
+    // Also read on the JS thread by enqueueCommand
+    private volatile boolean isStopping = false;
+    private volatile boolean isDestroyed = false;
+    private HeadlessTaskRunner headlessTaskRunner;
+    private ServiceConfigSnapshot configSnapshot;
+    // The first command tells a sticky restart (null intent) from a fresh start
+    private boolean isFirstCommand = true;
+    private NotificationUpdateQueue updateQueue;
+    private NotificationRenderer renderer;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Notifications are built and posted here; the main thread only calls startForeground
+    private HandlerThread renderThread;
+    private Handler renderHandler;
+    // Latest state to post per notificationId, handed from the main to the render thread
+    private final Map<Integer, ServiceSession> pendingRenders = new LinkedHashMap<>();
+    // Render thread only: fingerprint of what each notification currently shows
+    private final Map<Integer, Long> postedFingerprints = new HashMap<>();
+    private final Runnable saveSnapshot = this::saveSnapshot;
+    private final Runnable sampleProgress = this::sampleProgress;
+    private final Runnable refreshProgressRates = this::refreshProgressRates;
+    // Main thread only
+    private boolean rateRefreshPending = false;
+    private volatile long lastProgressSampleAt = 0;
+    private final IBinder binder = new LocalBinder();
+
+    /**
+     * In-process binder handed to the React module, so commands become direct calls
+     * instead of startForegroundService intents.
+     */
+    final class LocalBinder extends Binder {
+        ForegroundService getService() {
+            return ForegroundService.this;
+        }
+    }
+
+    // Process-wide task scheduler, shared by every service start and the React module
+    private static TaskScheduler taskScheduler;
+
+    // Counters outlive a single service instance so they can be read from the React module
+    private static final NotificationUpdateQueue.Stats updateStats = new NotificationUpdateQueue.Stats();
+
+    static NotificationUpdateQueue.Stats getUpdateStats() {
+        return updateStats;
+    }
+
+    /**
+     * The scheduler is created on first use, restoring the tasks recorded in the journal by a
+     * previous process.
+     */
+    static synchronized TaskScheduler getTaskScheduler(Context context) {
+        if (taskScheduler == null) {
+            taskScheduler = new TaskScheduler(TaskJournal.get(context), WakeLockManager.get(context),
+                Watchdog.get(), new TaskScheduler.Listener() {
+                    @Override
+                    public void onTaskDue(ScheduledTask task) {
+                        sendTaskDue(task);
+                    }
+
+                    @Override
+                    public void onTaskTimeout(ScheduledTask task, String deadline) {
+                        sendTaskTimeout(task, deadline);
+                    }
+                });
+        }
+        return taskScheduler;
+    }
+
+    // Due tasks are handed to JS, which runs the task function and reports back via completeTask.
+    // The event bus holds them while JS is not attached, e.g. after a sticky restart; if it
+    // has to drop one anyway, the attempt is handed back to the scheduler to retry later.
+    private static void sendTaskDue(ScheduledTask task) {
+        String taskId = task.taskId;
+        int attempt = task.executionCount;
+        WritableMap eventData = Arguments.createMap();
+        eventData.putString("taskId", taskId);
+        eventData.putInt("executionCount", attempt);
+        NativeEventBus.get().postRetained("onTaskExecute", eventData,
+            () -> taskScheduler.requeueTask(taskId, attempt));
+    }
+
+    // JS can't be interrupted; it drops the attempt, and native ignores its late completion
+    private static void sendTaskTimeout(ScheduledTask task, String deadline) {
+        WritableMap eventData = task.toWritableMap();
+        eventData.putString("deadline", deadline);
+        eventData.putInt("attempt", task.executionCount);
+        NativeEventBus.get().post("onTaskTimeout", eventData);
+    }
 
     @Override
     public void onCreate() {
         super.onCreate();
+        ServiceStateRegistry.markCreated();
+        // Task and service deadlines can now wake the device from doze
+        Watchdog.get().useAlarms(this);
         notificationManager = (NotificationManager) getSystemService(NOTIFICATION_SERVICE);
         createNotificationChannel();
+        renderer = new NotificationRenderer(this, CHANNEL_ID);
+        renderThread = new HandlerThread("RNForegroundServiceRender", Process.THREAD_PRIORITY_BACKGROUND);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+        headlessTaskRunner = new HeadlessTaskRunner(getApplication());
+        updateQueue = new NotificationUpdateQueue(renderHandler, this::renderPending, updateStats);
+        configSnapshot = ServiceConfigSnapshot.get(this);
+        // Called on the JS thread by the first channel write after a sample
+        ProgressChannel.get().setWake(() -> mainHandler.postAtTime(sampleProgress,
+            lastProgressSampleAt + updateQueue.getMinIntervalMs()));
+        // Brings back journaled tasks and keeps them scheduled, JS or not
+        getTaskScheduler(this);
     }
 
     @Override
     public int onStartCommand(Intent intent, int flags, int startId) {
+        if (isFirstCommand) {
+            isFirstCommand = false;
+            if (intent == null) {
+                // Sticky restart after the process was killed
+                restoreSessions();
+            } else {
+                configSnapshot.clear();
+            }
+        }
         if (intent != null) {
-            String action = intent.getAction();
-            
-            if ("UPDATE_NOTIFICATION".equals(action)) {
-                updateNotificationFromIntent(intent);
-                updateNotification();
-                return START_STICKY;
+            handleCommand(intent);
+        }
+        if (!isForeground && !isStopping) {
+            enterForeground();
+        }
+        return START_STICKY;
+    }
+
+    /**
+     * Entry point for commands sent over the local binder. They are queued on the main
+     * thread, the same thread onStartCommand runs on, so both paths stay ordered.
+     */
+    boolean enqueueCommand(Intent command) {
+        // A stopping service is about to be destroyed with whatever it is handed; the
+        // caller has to send an intent so a start brings up a new instance
+        if (isDestroyed || isStopping || !ServiceStateRegistry.isRunning()) {
+            return false;
+        }
+        return mainHandler.post(() -> {
+            if (isDestroyed || isStopping) {
+                // The service began stopping after the command was queued
+                if (isStartCommand(command)) {
+                    ContextCompat.startForegroundService(this, command);
+                }
+                return;
+            }
+            handleCommand(command);
+            if (!isForeground && !isStopping) {
+                enterForeground();
             }
-            
-            // Extract parameters from intent
-            extractParametersFromIntent(intent);
+        });
+    }
+
+    /**
+     * Whether the command starts a logical service or runs a task. Only these may start
+     * the Android service; the others are meaningless without a running one.
+     */
+    static boolean isStartCommand(Intent command) {
+        String action = command.getAction();
+        return !"STOP_SERVICE".equals(action)
+            && !"UPDATE_NOTIFICATION".equals(action)
+            && !"STOP_TASK".equals(action)
+            && !"CANCEL_NOTIFICATION".equals(action);
+    }
+
+    private void handleCommand(Intent intent) {
+        String action = intent.getAction();
+
+        if ("STOP_SERVICE".equals(action)) {
+            // Stop button on a notification, or stopService(taskName) from JS
+            if (intent.hasExtra("taskName")) {
+                stopSession(intent.getStringExtra("taskName"));
+            } else {
+                stopAllSessions();
+            }
+        } else if ("UPDATE_NOTIFICATION".equals(action)) {
+            ServiceSession session = intent.hasExtra("taskName")
+                ? sessions.get(intent.getStringExtra("taskName"))
+                : foregroundSession;
+            if (session == null) {
+                // Update for a logical service that is not running
+                updateStats.dropped.incrementAndGet();
+                return;
+            }
+            session.applyUpdate(intent);
+            session.recordOptions(intent);
+            applyServiceOptions(intent);
+            markDirty(session);
+        } else if ("RUN_TASK".equals(action)) {
+            runTaskFromIntent(intent);
+        } else if ("STOP_TASK".equals(action)) {
+            headlessTaskRunner.stop(intent.getStringExtra("taskName"));
+        } else if ("CANCEL_NOTIFICATION".equals(action)) {
+            int notificationId = intent.getIntExtra("notificationId", 0);
+            // The foreground notification can only go away with its service
+            if (foregroundSession == null || notificationId != foregroundSession.notificationId) {
+                cancelNotification(notificationId);
+            }
+        } else {
+            // Start, or re-start with new options, of a logical service
+            String name = intent.hasExtra("taskName") ? intent.getStringExtra("taskName") : DEFAULT_TASK_NAME;
+            isStopping = false;
+            ServiceSession session = obtainSession(name);
+            session.applyStartOptions(intent);
+            session.recordOptions(intent);
+            applyServiceOptions(intent);
+            armServiceTimeout(session);
+            markDirty(session);
         }
+    }
 
-        startForeground(NOTIFICATION_ID, createNotification());
-        return START_STICKY;
+    // Services as the killed process last configured them, replayed without waiting on JS
+    private void restoreSessions() {
+        for (ServiceConfigSnapshot.Entry entry : configSnapshot.load()) {
+            Intent options = new Intent().putExtras(entry.options);
+            String name = entry.options.containsKey("taskName")
+                ? entry.options.getString("taskName")
+                : DEFAULT_TASK_NAME;
+            ServiceSession session = new ServiceSession(name, entry.notificationId);
+            session.applyStartOptions(options);
+            session.recordOptions(options);
+            applyServiceOptions(options);
+            session.dirty = true;
+            sessions.put(name, session);
+            // The elapsed time before the kill is unknown, the limit starts over
+            armServiceTimeout(session);
+            nextNotificationId = Math.max(nextNotificationId, session.notificationId + 1);
+        }
+        publishSessions();
+    }
+
+    private void armServiceTimeout(ServiceSession session) {
+        String name = session.taskName;
+        if (session.timeoutMs > 0) {
+            Watchdog.get().arm(SERVICE_DEADLINE_KEY + name, session.timeoutMs,
+                () -> mainHandler.post(() -> onServiceTimeout(name)));
+        } else {
+            Watchdog.get().disarm(SERVICE_DEADLINE_KEY + name);
+        }
     }
 
-    private void extractParametersFromIntent(Intent intent) {
-        if (intent.hasExtra("taskName")) {
-            taskName = intent.getStringExtra("taskName");
+    private void onServiceTimeout(String name) {
+        if (isDestroyed || !sessions.containsKey(name)) {
+            return;
+        }
+        WritableMap eventData = Arguments.createMap();
+        eventData.putString("taskName", name);
+        NativeEventBus.get().postCritical("onServiceTimeout", eventData);
+        headlessTaskRunner.stop(name);
+        stopSession(name);
+    }
+
+    // autoStop: the logical service named like the finished run goes with it
+    private void onRunFinished(String runTaskName) {
+        // Posted, so a run replaced by a new start of the same task counts as still running
+        mainHandler.post(() -> {
+            ServiceSession session = sessions.get(runTaskName);
+            if (isDestroyed || session == null || !session.autoStop
+                || headlessTaskRunner.isRunning(runTaskName)) {
+                return;
+            }
+            stopSession(runTaskName);
+        });
+    }
+
+    private ServiceSession obtainSession(String name) {
+        ServiceSession session = sessions.get(name);
+        if (session == null) {
+            session = new ServiceSession(name, nextNotificationId++);
+            sessions.put(name, session);
+            publishSessions();
+        }
+        return session;
+    }
+
+    private void enterForeground() {
+        if (sessions.isEmpty()) {
+            // Sticky restart without options
+            obtainSession(DEFAULT_TASK_NAME);
+        }
+        if (foregroundSession == null) {
+            foregroundSession = sessions.values().iterator().next();
+        }
+        postForeground(foregroundSession);
+        configSnapshot.save(sessions.values());
+        isForeground = true;
+        ServiceStateRegistry.markForeground();
+        publishSessions();
+
+        // Other logical services started before the service was foregrounded
+        for (ServiceSession session : sessions.values()) {
+            if (session.dirty) {
+                queueRender(session);
+            }
         }
-        if (intent.hasExtra("taskTitle")) {
-            taskTitle = intent.getStringExtra("taskTitle");
+    }
+
+    // The one notification built on the main thread: startForeground can't wait
+    private void postForeground(ServiceSession session) {
+        synchronized (pendingRenders) {
+            pendingRenders.remove(session.notificationId);
         }
-        if (intent.hasExtra("taskDesc")) {
-            taskDesc = intent.getStringExtra("taskDesc");
+        startForeground(session.notificationId, createNotification(session));
+        session.dirty = false;
+        int notificationId = session.notificationId;
+        long fingerprint = session.contentFingerprint();
+        postToRenderThread(() -> {
+            postedFingerprints.put(notificationId, fingerprint);
+            updateQueue.markPosted();
+        });
+    }
+
+    private void stopSession(String name) {
+        ServiceSession session = sessions.get(name);
+        if (session == null) {
+            if (sessions.isEmpty()) {
+                // Nothing left to keep the service up, e.g. a stop that started it
+                stopAllSessions();
+            }
+            return;
         }
-        if (intent.hasExtra("taskIcon")) {
-            taskIcon = intent.getStringExtra("taskIcon");
+        if (sessions.size() == 1) {
+            stopAllSessions();
+            return;
         }
-        if (intent.hasExtra("importance")) {
-            importance = intent.getStringExtra("importance");
+
+        sessions.remove(name);
+        Watchdog.get().disarm(SERVICE_DEADLINE_KEY + name);
+        if (session == foregroundSession) {
+            // Hand the foreground over before dropping the old notification
+            foregroundSession = sessions.values().iterator().next();
+            postForeground(foregroundSession);
         }
-        if (intent.hasExtra("number")) {
-            number = intent.getIntExtra("number", 0);
+        cancelNotification(session.notificationId);
+        configSnapshot.save(sessions.values());
+        publishSessions();
+    }
+
+    private void stopAllSessions() {
+        isStopping = true;
+        configSnapshot.clear();
+        ServiceStateRegistry.markStopping();
+        Iterator<ServiceSession> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            ServiceSession session = iterator.next();
+            Watchdog.get().disarm(SERVICE_DEADLINE_KEY + session.taskName);
+            if (session != foregroundSession) {
+                cancelNotification(session.notificationId);
+            }
+            iterator.remove();
         }
-        if (intent.hasExtra("button")) {
-            button = intent.getBooleanExtra("button", false);
+        publishSessions();
+        stopSelf();
+    }
+
+    private void publishSessions() {
+        Map<String, Integer> notificationIds = new LinkedHashMap<>();
+        for (ServiceSession session : sessions.values()) {
+            notificationIds.put(session.taskName, session.notificationId);
         }
-        if (intent.hasExtra("buttonText")) {
-            buttonText = intent.getStringExtra("buttonText");
+        ServiceStateRegistry.publishSessions(notificationIds,
+            isForeground && foregroundSession != null ? foregroundSession.notificationId : 0);
+    }
+
+    private void markDirty(ServiceSession session) {
+        session.dirty = true;
+        // Before startForeground, enterForeground renders everything that is dirty
+        if (isForeground) {
+            queueRender(session);
         }
-        if (intent.hasExtra("buttonOnPress")) {
-            buttonOnPress = intent.getStringExtra("buttonOnPress");
+        if (session.progressTemplate != null && session.progressRate > 0) {
+            scheduleRateRefresh();
         }
-        if (intent.hasExtra("setOnlyAlertOnce")) {
-            setOnlyAlertOnce = intent.getBooleanExtra("setOnlyAlertOnce", false);
+    }
+
+    // If progress stalls, {rate} and {eta} have to move without new samples
+    private void scheduleRateRefresh() {
+        if (!rateRefreshPending) {
+            rateRefreshPending = true;
+            mainHandler.postDelayed(refreshProgressRates, RATE_REFRESH_MS);
         }
-        if (intent.hasExtra("color")) {
-            color = intent.getStringExtra("color");
+    }
+
+    private void refreshProgressRates() {
+        rateRefreshPending = false;
+        if (isDestroyed) {
+            return;
         }
-        if (intent.hasExtra("progressMax")) {
-            progressMax = intent.getIntExtra("progressMax", 100);
+        for (ServiceSession session : sessions.values()) {
+            if (session.progressTemplate == null || session.progressRate == 0) {
+                continue;
+            }
+            double rate = session.progressRate;
+            session.refreshRate();
+            if (session.progressRate != rate) {
+                // Schedules the next refresh until the rate has faded to 0
+                markDirty(session);
+            } else {
+                // Still receiving progress
+                scheduleRateRefresh();
+            }
         }
-        if (intent.hasExtra("progressCurr")) {
-            progressCurr = intent.getIntExtra("progressCurr", 0);
+    }
+
+    private void queueRender(ServiceSession session) {
+        session.dirty = false;
+        synchronized (pendingRenders) {
+            pendingRenders.put(session.notificationId, session.copyForRender());
         }
-        if (intent.hasExtra("progressIndeterminate")) {
-            progressIndeterminate = intent.getBooleanExtra("progressIndeterminate", false);
+        postToRenderThread(updateQueue::submit);
+    }
+
+    // Cancels go through the render thread too, so a queued post can't bring one back
+    private void cancelNotification(int notificationId) {
+        synchronized (pendingRenders) {
+            pendingRenders.remove(notificationId);
         }
+        postToRenderThread(() -> {
+            notificationManager.cancel(notificationId);
+            renderer.forget(notificationId);
+            postedFingerprints.remove(notificationId);
+        });
+    }
+
+    private void postToRenderThread(Runnable job) {
+        updateStats.enqueued();
+        renderHandler.post(() -> {
+            updateStats.queueDepth.decrementAndGet();
+            job.run();
+        });
     }
 
-    private void updateNotificationFromIntent(Intent intent) {
-        if (intent.hasExtra("taskTitle")) {
-            taskTitle = intent.getStringExtra("taskTitle");
+    // Render thread
+    private void renderPending() {
+        List<ServiceSession> renders;
+        synchronized (pendingRenders) {
+            renders = new ArrayList<>(pendingRenders.values());
+            pendingRenders.clear();
         }
-        if (intent.hasExtra("taskDesc")) {
-            taskDesc = intent.getStringExtra("taskDesc");
+        boolean rendered = false;
+        for (ServiceSession session : renders) {
+            if (isDestroyed) {
+                return;
+            }
+            if (session.progressTemplate != null) {
+                // Fill the template once per post, for the fingerprint and the build
+                session.taskDesc = session.getContentText();
+                session.progressTemplate = null;
+            }
+            long fingerprint = session.contentFingerprint();
+            Long posted = postedFingerprints.get(session.notificationId);
+            if (posted != null && posted == fingerprint) {
+                // Nothing visible changed, skip the build and the notify() IPC
+                updateStats.skipped.incrementAndGet();
+                continue;
+            }
+            long startedAt = SystemClock.uptimeMillis();
+            notificationManager.notify(session.notificationId, createNotification(session));
+            updateStats.renderLatency.record(SystemClock.uptimeMillis() - startedAt);
+            postedFingerprints.put(session.notificationId, fingerprint);
+            updateStats.sent.incrementAndGet();
+            rendered = true;
         }
-        if (intent.hasExtra("progressMax")) {
-            progressMax = intent.getIntExtra("progressMax", 100);
+        if (rendered) {
+            mainHandler.post(saveSnapshot);
         }
-        if (intent.hasExtra("progressCurr")) {
-            progressCurr = intent.getIntExtra("progressCurr", 0);
+    }
+
+    private void saveSnapshot() {
+        // A stop cleared the snapshot already
+        if (!isDestroyed && !isStopping) {
+            configSnapshot.save(sessions.values());
         }
-        if (intent.hasExtra("progressIndeterminate")) {
-            progressIndeterminate = intent.getBooleanExtra("progressIndeterminate", false);
+    }
+
+    // Progress written to ProgressChannel since the last sample, at most once per refresh interval
+    private void sampleProgress() {
+        if (isDestroyed) {
+            return;
+        }
+        lastProgressSampleAt = SystemClock.uptimeMillis();
+        ProgressChannel.get().sample((taskName, curr, max) -> {
+            ServiceSession session = sessions.get(taskName);
+            if (session != null) {
+                session.setProgress(curr, max);
+                markDirty(session);
+            }
+        });
+    }
+
+    // Options that apply to the whole Android service rather than one logical service
+    private void applyServiceOptions(Intent intent) {
+        if (intent.hasExtra("maxUpdateRate")) {
+            updateQueue.setMaxUpdatesPerSecond(intent.getDoubleExtra("maxUpdateRate", NotificationUpdateQueue.DEFAULT_MAX_UPDATES_PER_SECOND));
         }
     }
 
-    private void updateNotification() {
-        notificationManager.notify(NOTIFICATION_ID, createNotification());
+    private void runTaskFromIntent(Intent intent) {
+        String runTaskName = intent.getStringExtra("taskName");
+        if (runTaskName == null) {
+            return;
+        }
+        long delay = intent.getLongExtra("delay", 0);
+        long loopDelay = intent.getLongExtra("loopDelay", delay);
+        boolean onLoop = intent.getBooleanExtra("onLoop", false);
+        long timeout = intent.getLongExtra("timeout", 0);
+        WritableMap extras = null;
+        String payload = intent.getStringExtra("payload");
+        if (payload != null) {
+            // Only the handle came through the Intent; the task reads the file itself
+            extras = Arguments.createMap();
+            PayloadStore store = PayloadStore.get(this);
+            store.putPayloadRef(extras, payload);
+            // Kept from expiring for as long as this run lasts
+            store.markInUse(payload);
+        }
+        headlessTaskRunner.run(runTaskName, delay, loopDelay, onLoop, timeout, extras, () -> {
+            if (payload != null) {
+                PayloadStore.get(this).unmarkInUse(payload);
+            }
+            onRunFinished(runTaskName);
+        });
     }
 
     private void createNotificationChannel() {
@@ -130,14 +575,14 @@ public class ForegroundService extends Service {
             NotificationChannel serviceChannel = new NotificationChannel(
                 CHANNEL_ID,
                 "Foreground Service Channel",
-                getNotificationImportance()
+                getNotificationImportance("DEFAULT")
             );
             serviceChannel.setDescription("Channel for foreground service notifications");
             notificationManager.createNotificationChannel(serviceChannel);
         }
     }
 
-    private int getNotificationImportance() {
+    private int getNotificationImportance(String importance) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
             switch (importance) {
                 case "NONE":
@@ -156,67 +601,46 @@ public class ForegroundService extends Service {
         return 0;
     }
 
-    private Notification createNotification() {
-        // Get app icon resource ID
-        int iconResource = getApplicationInfo().icon;
-        
-        // Try to get custom icon if specified
-        if (!taskIcon.equals("ic_notification")) {
-            int customIcon = getResources().getIdentifier(taskIcon, "drawable", getPackageName());
-            if (customIcon != 0) {
-                iconResource = customIcon;
-            }
-        }
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                .setContentTitle(taskTitle)
-                .setContentText(taskDesc)
-                .setSmallIcon(iconResource)
-                .setOnlyAlertOnce(setOnlyAlertOnce)
-                .setOngoing(true);
-
-        // Set color if specified
-        try {
-            builder.setColor(Color.parseColor(color));
-        } catch (IllegalArgumentException e) {
-            // Use default color if parsing fails
-        }
-
-        // Set number if specified
-        if (number > 0) {
-            builder.setNumber(number);
-        }
-
-        // Add progress bar if needed
-        if (progressMax > 0) {
-            builder.setProgress(progressMax, progressCurr, progressIndeterminate);
-        }
-
-        // Add action button if specified
-        if (button) {
-            Intent stopIntent = new Intent(this, ForegroundService.class);
-            stopIntent.setAction("STOP_SERVICE");
-            PendingIntent stopPendingIntent = PendingIntent.getService(
-                this, 
-                0, 
-                stopIntent, 
-                PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
-            );
-            builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, buttonText, stopPendingIntent);
-        }
-
-        return builder.build();
+    private Notification createNotification(ServiceSession session) {
+        return renderer.render(session);
     }
 
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        return binder;
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
+        isDestroyed = true;
+        // Destroyed by the system or a plain stopService: nothing is restored from here
+        configSnapshot.clear();
+        int[] notificationIds = new int[sessions.size()];
+        int index = 0;
+        for (ServiceSession session : sessions.values()) {
+            Watchdog.get().disarm(SERVICE_DEADLINE_KEY + session.taskName);
+            notificationIds[index++] = session.notificationId;
+        }
+        sessions.clear();
+        headlessTaskRunner.stopAll();
+        ProgressChannel.get().setWake(null);
+        mainHandler.removeCallbacks(sampleProgress);
+        mainHandler.removeCallbacks(refreshProgressRates);
+        synchronized (pendingRenders) {
+            pendingRenders.clear();
+        }
+        renderHandler.post(() -> {
+            updateQueue.close();
+            // After the queue is closed, so no render in flight can post them again
+            for (int notificationId : notificationIds) {
+                notificationManager.cancel(notificationId);
+            }
+        });
+        renderThread.quitSafely();
+        isForeground = false;
         stopForeground(true);
+        ServiceStateRegistry.markDestroyed();
     }
 }
@@ -0,0 +1,380 @@
+package com.reactnativeforegroundservice;
+
+import android.app.Application;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.ReactApplication;
+import com.facebook.react.ReactHost;
+import com.facebook.react.ReactInstanceEventListener;
+import com.facebook.react.ReactInstanceManager;
+import com.facebook.react.ReactNativeHost;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.config.ReactFeatureFlags;
+import com.facebook.react.jstasks.HeadlessJsTaskConfig;
+import com.facebook.react.jstasks.HeadlessJsTaskContext;
+import com.facebook.react.jstasks.HeadlessJsTaskEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Runs tasks registered through AppRegistry.registerHeadlessTask on React Native's
+ * HeadlessJsTaskContext. Delays and loops are driven by a native Handler, and the same
+ * React context is reused for every iteration while it is the app's current one; after a
+ * reload or teardown the runner moves to the new context.
+ */
+final class HeadlessTaskRunner implements HeadlessJsTaskEventListener {
+    // Task names registered from JS for this process
+    private static final Set<String> registeredTasks = Collections.synchronizedSet(new HashSet<>());
+
+    static void registerTask(String taskName) {
+        registeredTasks.add(taskName);
+    }
+
+    static boolean isTaskRegistered(String taskName) {
+        return registeredTasks.contains(taskName);
+    }
+
+    private final class TaskRun implements Runnable {
+        // Identifies the run; the task name for runs started by run(), unique for runOnce()
+        final String key;
+        final String taskName;
+        final long loopDelay;
+        final boolean onLoop;
+        final long timeout;
+        // Extra task data passed to every iteration
+        @Nullable
+        final ReadableMap extras;
+        // Called once the run ends, whether it finished or was cancelled
+        @Nullable
+        final Runnable onFinished;
+        int iteration = 0;
+        int jsTaskId = -1;
+        // Set from the start of an iteration, React boot included, until it ends; 0 if none
+        long wakeLockToken = 0;
+        // Bumped per iteration, so a late watchdog expiry can't hit the next iteration
+        int deadlineToken = 0;
+        boolean finished = false;
+
+        TaskRun(String key, String taskName, long loopDelay, boolean onLoop, long timeout,
+                @Nullable ReadableMap extras, @Nullable Runnable onFinished) {
+            this.key = key;
+            this.taskName = taskName;
+            this.loopDelay = loopDelay;
+            this.onLoop = onLoop;
+            this.timeout = timeout;
+            this.extras = extras;
+            this.onFinished = onFinished;
+        }
+
+        // At most once, whichever way the run ends
+        void finish() {
+            if (!finished) {
+                finished = true;
+                if (onFinished != null) {
+                    onFinished.run();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            startIteration(this);
+        }
+    }
+
+    // Time for React to boot on top of the task's own timeout
+    static final long STARTUP_GRACE_MS = 30000;
+    private static final String WATCHDOG_KEY = "headless:";
+
+    private final Application application;
+    private final WakeLockManager wakeLocks;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    // Accessed on the main thread only
+    private final Map<String, TaskRun> runs = new HashMap<>();
+    private final Map<Integer, TaskRun> activeRuns = new HashMap<>();
+    private final List<TaskRun> waitingForContext = new ArrayList<>();
+    @Nullable
+    private ReactContext reactContext;
+    private boolean bootingContext = false;
+
+    HeadlessTaskRunner(Application application) {
+        this.application = application;
+        this.wakeLocks = WakeLockManager.get(application);
+    }
+
+    /**
+     * Starts taskName after delay; when onLoop is set it is restarted loopDelay ms after
+     * each iteration finishes, until stopped. extras are passed to every iteration next to
+     * taskName. onFinished is called on the main thread when the run ends.
+     */
+    void run(String taskName, long delay, long loopDelay, boolean onLoop, long timeout,
+             @Nullable ReadableMap extras, @Nullable Runnable onFinished) {
+        mainHandler.post(() -> {
+            cancelRun(taskName);
+            TaskRun run = new TaskRun(taskName, taskName, loopDelay, onLoop, timeout, extras, onFinished);
+            runs.put(taskName, run);
+            mainHandler.postDelayed(run, Math.max(0, delay));
+        });
+    }
+
+    /**
+     * Starts a single iteration of taskName under its own key, so it never replaces a run
+     * started by run(). onFinished is called on the main thread when the JS task finishes
+     * or the run is stopped.
+     */
+    void runOnce(String key, String taskName, @Nullable ReadableMap extras, long timeout, Runnable onFinished) {
+        mainHandler.post(() -> {
+            cancelRun(key);
+            TaskRun run = new TaskRun(key, taskName, 0, false, timeout, extras, onFinished);
+            runs.put(key, run);
+            run.run();
+        });
+    }
+
+    void stop(String key) {
+        mainHandler.post(() -> cancelRun(key));
+    }
+
+    // Main thread only
+    boolean isRunning(String key) {
+        return runs.containsKey(key);
+    }
+
+    void stopAll() {
+        mainHandler.post(() -> {
+            for (String key : new ArrayList<>(runs.keySet())) {
+                cancelRun(key);
+            }
+            detach();
+        });
+    }
+
+    private void cancelRun(String key) {
+        TaskRun run = runs.remove(key);
+        if (run == null) {
+            return;
+        }
+        mainHandler.removeCallbacks(run);
+        waitingForContext.remove(run);
+        endIteration(run);
+        if (run.jsTaskId != -1) {
+            // Finished here, so onHeadlessJsTaskFinish must not finish it again
+            activeRuns.remove(run.jsTaskId);
+            if (reactContext != null) {
+                HeadlessJsTaskContext taskContext = HeadlessJsTaskContext.getInstance(reactContext);
+                if (taskContext.isTaskRunning(run.jsTaskId)) {
+                    taskContext.finishTask(run.jsTaskId);
+                }
+            }
+        }
+        run.finish();
+    }
+
+    private void startIteration(TaskRun run) {
+        if (runs.get(run.key) != run) {
+            return;
+        }
+        if (run.wakeLockToken == 0) {
+            // Keeps the CPU up through doze until the iteration finishes or times out
+            long deadline = run.timeout > 0 ? run.timeout + STARTUP_GRACE_MS : 0;
+            run.wakeLockToken = wakeLocks.acquire(run.taskName, deadline);
+            if (deadline > 0) {
+                // Backstop for React's own task timeout, which only starts once React is up
+                int token = ++run.deadlineToken;
+                Watchdog.get().arm(WATCHDOG_KEY + run.key, deadline,
+                    () -> mainHandler.post(() -> expireIteration(run, token)));
+            }
+        }
+        ReactContext context = getReactContext();
+        if (context == null) {
+            waitingForContext.add(run);
+            bootReactContext();
+            return;
+        }
+
+        WritableMap data = Arguments.createMap();
+        data.putString("taskName", run.taskName);
+        data.putInt("iteration", run.iteration++);
+        if (run.extras != null) {
+            data.merge(run.extras);
+        }
+        HeadlessJsTaskConfig config = new HeadlessJsTaskConfig(run.taskName, data, run.timeout, true);
+        run.jsTaskId = HeadlessJsTaskContext.getInstance(context).startTask(config);
+        ServiceMetrics.tasksExecuted.incrementAndGet();
+        activeRuns.put(run.jsTaskId, run);
+    }
+
+    @Override
+    public void onHeadlessJsTaskStart(int taskId) {
+        // Nothing to do, iterations are tracked from startTask's return value
+    }
+
+    @Override
+    public void onHeadlessJsTaskFinish(int taskId) {
+        mainHandler.post(() -> {
+            TaskRun run = activeRuns.remove(taskId);
+            if (run != null) {
+                onIterationFinished(run);
+            }
+        });
+    }
+
+    private void onIterationFinished(TaskRun run) {
+        run.jsTaskId = -1;
+        endIteration(run);
+        if (run.onLoop && runs.get(run.key) == run) {
+            mainHandler.postDelayed(run, Math.max(0, run.loopDelay));
+        } else {
+            if (runs.get(run.key) == run) {
+                runs.remove(run.key);
+            }
+            run.finish();
+        }
+    }
+
+    private void endIteration(TaskRun run) {
+        if (run.wakeLockToken != 0) {
+            wakeLocks.release(run.taskName, run.wakeLockToken);
+            run.wakeLockToken = 0;
+            Watchdog.get().disarm(WATCHDOG_KEY + run.key);
+        }
+    }
+
+    private void expireIteration(TaskRun run, int token) {
+        if (runs.get(run.key) != run || run.wakeLockToken == 0 || run.deadlineToken != token) {
+            return;
+        }
+        WritableMap eventData = Arguments.createMap();
+        eventData.putString("taskName", run.taskName);
+        eventData.putString("deadline", TaskScheduler.DEADLINE_ATTEMPT);
+        NativeEventBus.get().post("onTaskTimeout", eventData);
+
+        if (run.onLoop && run.jsTaskId != -1 && reactContext != null) {
+            // Ends this iteration only; onHeadlessJsTaskFinish schedules the next one
+            HeadlessJsTaskContext taskContext = HeadlessJsTaskContext.getInstance(reactContext);
+            if (taskContext.isTaskRunning(run.jsTaskId)) {
+                taskContext.finishTask(run.jsTaskId);
+                return;
+            }
+        }
+        cancelRun(run.key);
+    }
+
+    /**
+     * The app's current React context, or null while there is none with an active
+     * instance. Checked on every call: a reload or teardown replaces the context, and
+     * iterations must not be started on a dead one.
+     */
+    @Nullable
+    private ReactContext getReactContext() {
+        ReactContext current = getCurrentReactContext();
+        if (current != null && !current.hasActiveReactInstance()) {
+            current = null;
+        }
+        if (current != reactContext) {
+            detach();
+            if (current != null) {
+                attach(current);
+            }
+        }
+        return reactContext;
+    }
+
+    private void attach(ReactContext context) {
+        reactContext = context;
+        HeadlessJsTaskContext.getInstance(context).addTaskEventListener(this);
+    }
+
+    private void detach() {
+        if (reactContext == null) {
+            return;
+        }
+        HeadlessJsTaskContext.getInstance(reactContext).removeTaskEventListener(this);
+        reactContext = null;
+        // JS tasks of the old context won't report finishing; their iterations end here
+        List<TaskRun> orphaned = new ArrayList<>(activeRuns.values());
+        activeRuns.clear();
+        for (TaskRun run : orphaned) {
+            onIterationFinished(run);
+        }
+    }
+
+    // Boots React once in the background; queued iterations start when it is ready
+    private void bootReactContext() {
+        if (bootingContext || !(application instanceof ReactApplication)) {
+            return;
+        }
+        ReactApplication reactApplication = (ReactApplication) application;
+        bootingContext = true;
+        if (ReactFeatureFlags.enableBridgelessArchitecture) {
+            ReactHost reactHost = reactApplication.getReactHost();
+            if (reactHost == null) {
+                bootingContext = false;
+                return;
+            }
+            reactHost.addReactInstanceEventListener(new ReactInstanceEventListener() {
+                @Override
+                public void onReactContextInitialized(ReactContext context) {
+                    reactHost.removeReactInstanceEventListener(this);
+                    onContextBooted();
+                }
+            });
+            reactHost.start();
+        } else {
+            ReactInstanceManager instanceManager = reactApplication.getReactNativeHost().getReactInstanceManager();
+            instanceManager.addReactInstanceEventListener(new ReactInstanceEventListener() {
+                @Override
+                public void onReactContextInitialized(ReactContext context) {
+                    instanceManager.removeReactInstanceEventListener(this);
+                    onContextBooted();
+                }
+            });
+            if (!instanceManager.hasStartedCreatingInitialContext()) {
+                instanceManager.createReactContextInBackground();
+            }
+        }
+    }
+
+    private void onContextBooted() {
+        mainHandler.post(() -> {
+            bootingContext = false;
+            List<TaskRun> queued = new ArrayList<>(waitingForContext);
+            waitingForContext.clear();
+            for (TaskRun run : queued) {
+                // Attaches to the new context, or queues the run again if it is gone already
+                startIteration(run);
+            }
+        });
+    }
+
+    /**
+     * Current context of the React host the app runs on: ReactHost in bridgeless New
+     * Architecture, where there is no ReactInstanceManager, and ReactInstanceManager
+     * otherwise.
+     */
+    @Nullable
+    private ReactContext getCurrentReactContext() {
+        if (!(application instanceof ReactApplication)) {
+            return null;
+        }
+        ReactApplication reactApplication = (ReactApplication) application;
+        if (ReactFeatureFlags.enableBridgelessArchitecture) {
+            ReactHost reactHost = reactApplication.getReactHost();
+            return reactHost != null ? reactHost.getCurrentReactContext() : null;
+        }
+        ReactNativeHost host = reactApplication.getReactNativeHost();
+        return host.hasInstance() ? host.getReactInstanceManager().getCurrentReactContext() : null;
+    }
+}
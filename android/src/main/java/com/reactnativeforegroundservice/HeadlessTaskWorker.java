@@ -0,0 +1,102 @@
+package com.reactnativeforegroundservice;
+
+import android.app.Application;
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Data;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkManager worker that runs a headless JS task. The request is persisted by WorkManager,
+ * so the task survives process death and reboots without a foreground service. The input
+ * data is passed to the task next to taskName.
+ */
+public class HeadlessTaskWorker extends Worker {
+    static final String KEY_TASK_NAME = "taskName";
+    static final String KEY_TIMEOUT = "timeout";
+    static final String KEY_PAYLOAD = "payload";
+
+    // WorkManager stops workers after 10 minutes; give up just before that
+    private static final long MAX_WAIT_MS = TimeUnit.MINUTES.toMillis(9);
+
+    private static HeadlessTaskRunner runner;
+
+    private static synchronized HeadlessTaskRunner getRunner(Application application) {
+        if (runner == null) {
+            runner = new HeadlessTaskRunner(application);
+        }
+        return runner;
+    }
+
+    public HeadlessTaskWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Data input = getInputData();
+        String taskName = input.getString(KEY_TASK_NAME);
+        if (taskName == null) {
+            return Result.failure();
+        }
+        long timeout = input.getLong(KEY_TIMEOUT, 0);
+
+        CountDownLatch finished = new CountDownLatch(1);
+        HeadlessTaskRunner taskRunner = getRunner((Application) getApplicationContext());
+        WritableMap data = toTaskData(input);
+        String payload = input.getString(KEY_PAYLOAD);
+        if (payload != null) {
+            PayloadStore.get(getApplicationContext()).putPayloadRef(data, payload);
+        }
+        taskRunner.runOnce(getRunKey(), taskName, data, timeout, finished::countDown);
+
+        long waitMs = timeout > 0 ? Math.min(timeout + HeadlessTaskRunner.STARTUP_GRACE_MS, MAX_WAIT_MS) : MAX_WAIT_MS;
+        try {
+            if (!finished.await(waitMs, TimeUnit.MILLISECONDS)) {
+                taskRunner.stop(getRunKey());
+                return Result.retry();
+            }
+        } catch (InterruptedException e) {
+            taskRunner.stop(getRunKey());
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+        // Headless JS doesn't report rejections, a finished task counts as done
+        return isStopped() ? Result.retry() : Result.success();
+    }
+
+    @Override
+    public void onStopped() {
+        // Constraints no longer met or the work was cancelled
+        getRunner((Application) getApplicationContext()).stop(getRunKey());
+    }
+
+    private String getRunKey() {
+        return "work:" + getId();
+    }
+
+    private static WritableMap toTaskData(Data input) {
+        WritableMap data = Arguments.createMap();
+        for (Map.Entry<String, Object> entry : input.getKeyValueMap().entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                data.putString(entry.getKey(), (String) value);
+            } else if (value instanceof Boolean) {
+                data.putBoolean(entry.getKey(), (Boolean) value);
+            } else if (value instanceof Number) {
+                data.putDouble(entry.getKey(), ((Number) value).doubleValue());
+            }
+        }
+        return data;
+    }
+}
@@ -0,0 +1,65 @@
+package com.reactnativeforegroundservice;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Fixed-bucket latency histogram. Recording is a bucket search and a counter bump;
+ * percentiles are read back as the upper bound of the bucket they fall in.
+ */
+final class LatencyHistogram {
+    // Upper bounds in ms; the last bucket takes everything above
+    private static final long[] BOUNDS = {
+        1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 300000,
+    };
+
+    private final long[] counts = new long[BOUNDS.length + 1];
+    private long total = 0;
+    private long max = 0;
+
+    synchronized void record(long valueMs) {
+        long value = Math.max(0, valueMs);
+        int bucket = 0;
+        while (bucket < BOUNDS.length && value > BOUNDS[bucket]) {
+            bucket++;
+        }
+        counts[bucket]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    synchronized WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("count", total);
+        map.putDouble("max", max);
+        map.putDouble("p50", percentile(0.50));
+        map.putDouble("p95", percentile(0.95));
+        map.putDouble("p99", percentile(0.99));
+        WritableArray buckets = Arguments.createArray();
+        for (int i = 0; i < counts.length; i++) {
+            WritableMap bucket = Arguments.createMap();
+            // -1 stands for the open-ended last bucket
+            bucket.putDouble("le", i < BOUNDS.length ? BOUNDS[i] : -1);
+            bucket.putDouble("count", counts[i]);
+            buckets.pushMap(bucket);
+        }
+        map.putArray("buckets", buckets);
+        return map;
+    }
+
+    private long percentile(double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS.length ? Math.min(BOUNDS[i], max) : max;
+            }
+        }
+        return max;
+    }
+}
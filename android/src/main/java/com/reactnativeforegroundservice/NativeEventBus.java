@@ -0,0 +1,264 @@
+package com.reactnativeforegroundservice;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide event channel to JS. Events are buffered in a bounded ring and delivered on
+ * the main thread: regular events are batched into one "onEvents" emission per frame,
+ * critical ones are emitted on their own right away. While no React instance is attached
+ * events stay buffered and are replayed on attach. On overflow the oldest regular event is
+ * dropped first; critical events and task dispatches are kept, since JS acts on them, and the
+ * ring grows when it holds nothing else, up to MAX_GROWTH times its capacity. Past that the
+ * oldest kept event is dropped too, and its onDropped callback lets the poster undo it.
+ */
+final class NativeEventBus {
+    private static final String TAG = "RNForegroundService";
+
+    static final String BATCH_EVENT = "onEvents";
+    static final int DEFAULT_CAPACITY = 256;
+    // How far the ring may grow for events that are not dropped first
+    static final int MAX_GROWTH = 4;
+
+    // One frame at 60 fps
+    private static final long BATCH_INTERVAL_MS = 16;
+    // Retry delay while an attached context has no active instance yet
+    private static final long INACTIVE_RETRY_MS = 250;
+
+    private static final class Event {
+        final String name;
+        @Nullable
+        final WritableMap params;
+        final boolean critical;
+        // Only evicted once the ring can't grow any further
+        final boolean retained;
+        // Run when a retained event is evicted
+        @Nullable
+        final Runnable onDropped;
+
+        Event(String name, @Nullable WritableMap params, boolean critical, boolean retained,
+              @Nullable Runnable onDropped) {
+            this.name = name;
+            this.params = params;
+            this.critical = critical;
+            this.retained = retained;
+            this.onDropped = onDropped;
+        }
+    }
+
+    private static NativeEventBus instance;
+
+    static synchronized NativeEventBus get() {
+        if (instance == null) {
+            instance = new NativeEventBus(DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private Event[] ring;
+    private final int maxCapacity;
+    private int head = 0;
+    private int size = 0;
+    // Dropped since the last delivered batch, reported in its payload
+    private long pendingDropped = 0;
+    private final AtomicLong totalDropped = new AtomicLong();
+    @Nullable
+    private ReactApplicationContext context;
+    private boolean flushScheduled = false;
+
+    NativeEventBus(int capacity) {
+        ring = new Event[capacity];
+        maxCapacity = capacity * MAX_GROWTH;
+    }
+
+    synchronized void attach(ReactApplicationContext reactContext) {
+        context = reactContext;
+        // Replay whatever was buffered while detached
+        if (size > 0 || pendingDropped > 0) {
+            scheduleFlush(0);
+        }
+    }
+
+    synchronized void detach(ReactApplicationContext reactContext) {
+        if (context == reactContext) {
+            context = null;
+        }
+    }
+
+    void post(String name, @Nullable WritableMap params) {
+        enqueue(new Event(name, params, false, false, null));
+    }
+
+    void postCritical(String name, @Nullable WritableMap params) {
+        enqueue(new Event(name, params, true, true, null));
+    }
+
+    /**
+     * Batched like a regular event but kept over them, for events JS has to answer, such
+     * as a task dispatch whose completion frees the task's slot and wake lock. onDropped
+     * runs, without the bus locked, if the event is evicted from a full ring anyway.
+     */
+    void postRetained(String name, @Nullable WritableMap params, @Nullable Runnable onDropped) {
+        enqueue(new Event(name, params, false, true, onDropped));
+    }
+
+    long getDroppedCount() {
+        return totalDropped.get();
+    }
+
+    private void enqueue(Event event) {
+        Event evicted = offer(event);
+        if (evicted != null && evicted.onDropped != null) {
+            evicted.onDropped.run();
+        }
+    }
+
+    // Returns the retained event evicted to make room, if any
+    @Nullable
+    private synchronized Event offer(Event event) {
+        Event evicted = null;
+        if (size == ring.length && evictOldest(false) == null) {
+            if (!event.retained) {
+                // Only retained events are buffered; the new one is the oldest regular one
+                pendingDropped++;
+                totalDropped.incrementAndGet();
+                return null;
+            }
+            if (ring.length < maxCapacity) {
+                grow();
+            } else {
+                evicted = evictOldest(true);
+            }
+        }
+        ring[(head + size) % ring.length] = event;
+        size++;
+        scheduleFlush(event.critical ? 0 : BATCH_INTERVAL_MS);
+        return evicted;
+    }
+
+    // Caller holds the lock; evicts the oldest regular event, or the oldest of any kind if
+    // retained is set. Returns null if there was none to evict.
+    @Nullable
+    private Event evictOldest(boolean retained) {
+        for (int i = 0; i < size; i++) {
+            Event event = ring[(head + i) % ring.length];
+            if (retained || !event.retained) {
+                // Close the gap so the ring stays in posting order
+                for (int j = i; j < size - 1; j++) {
+                    ring[(head + j) % ring.length] = ring[(head + j + 1) % ring.length];
+                }
+                ring[(head + size - 1) % ring.length] = null;
+                size--;
+                pendingDropped++;
+                totalDropped.incrementAndGet();
+                return event;
+            }
+        }
+        return null;
+    }
+
+    // Caller holds the lock
+    private void grow() {
+        Event[] grown = new Event[Math.min(ring.length * 2, maxCapacity)];
+        for (int i = 0; i < size; i++) {
+            grown[i] = ring[(head + i) % ring.length];
+        }
+        ring = grown;
+        head = 0;
+    }
+
+    // Caller holds the lock
+    private void scheduleFlush(long delayMs) {
+        if (context == null) {
+            // Delivered by attach()
+            return;
+        }
+        if (delayMs == 0) {
+            mainHandler.removeCallbacks(flushRunnable);
+            mainHandler.post(flushRunnable);
+            flushScheduled = true;
+        } else if (!flushScheduled) {
+            mainHandler.postDelayed(flushRunnable, delayMs);
+            flushScheduled = true;
+        }
+    }
+
+    private void flush() {
+        ReactApplicationContext target;
+        Event[] pending;
+        long dropped;
+        synchronized (this) {
+            flushScheduled = false;
+            target = context;
+            if (target == null) {
+                return;
+            }
+            if (!target.hasActiveReactInstance()) {
+                mainHandler.postDelayed(flushRunnable, INACTIVE_RETRY_MS);
+                flushScheduled = true;
+                return;
+            }
+            pending = new Event[size];
+            for (int i = 0; i < size; i++) {
+                int index = (head + i) % ring.length;
+                pending[i] = ring[index];
+                ring[index] = null;
+            }
+            head = 0;
+            size = 0;
+            dropped = pendingDropped;
+            pendingDropped = 0;
+        }
+
+        try {
+            DeviceEventManagerModule.RCTDeviceEventEmitter emitter =
+                target.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class);
+            WritableArray batch = null;
+            for (Event event : pending) {
+                if (event.critical) {
+                    // Keep ordering: regular events posted before it go out first
+                    if (batch != null) {
+                        emitBatch(emitter, batch, dropped);
+                        batch = null;
+                        dropped = 0;
+                    }
+                    emitter.emit(event.name, event.params);
+                } else {
+                    if (batch == null) {
+                        batch = Arguments.createArray();
+                    }
+                    WritableMap entry = Arguments.createMap();
+                    entry.putString("name", event.name);
+                    entry.putMap("params", event.params);
+                    batch.pushMap(entry);
+                }
+            }
+            if (batch != null || dropped > 0) {
+                emitBatch(emitter, batch != null ? batch : Arguments.createArray(), dropped);
+            }
+        } catch (RuntimeException e) {
+            // Instance torn down between the check and the emit
+            Log.w(TAG, "Failed to deliver " + pending.length + " events", e);
+        }
+    }
+
+    private static void emitBatch(DeviceEventManagerModule.RCTDeviceEventEmitter emitter, WritableArray events, long dropped) {
+        WritableMap payload = Arguments.createMap();
+        payload.putArray("events", events);
+        payload.putDouble("dropped", dropped);
+        emitter.emit(BATCH_EVENT, payload);
+    }
+}
@@ -0,0 +1,157 @@
+package com.reactnativeforegroundservice;
+
+import android.app.Notification;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Color;
+import android.os.Build;
+import androidx.annotation.Nullable;
+import androidx.core.app.NotificationCompat;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds session notifications with what stays the same between updates cached: one
+ * builder per notification, resolved icon IDs, parsed colors and the stop PendingIntent.
+ * A progress or text update only sets those fields on the kept builder; the builder is
+ * recreated when the icon, color, alert or button options change. Updates are built on
+ * the render thread and startForeground notifications on the main thread, so calls are
+ * serialized on the renderer.
+ */
+final class NotificationRenderer {
+    private static final String DEFAULT_ICON = "ic_notification";
+    // Progress bars take ints; larger maxima are scaled down to this
+    private static final int PROGRESS_SCALE = 10000;
+
+    private static final class Entry {
+        NotificationCompat.Builder builder;
+        // Inputs the builder was set up with
+        int iconResource;
+        @Nullable
+        Integer color;
+        boolean setOnlyAlertOnce;
+        boolean button;
+        String buttonText;
+        @Nullable
+        PendingIntent stopIntent;
+    }
+
+    private final Context context;
+    private final String channelId;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    // getIdentifier is a reflective lookup; 0 caches "no such drawable"
+    private final Map<String, Integer> iconIds = new HashMap<>();
+    // null caches an unparsable color
+    private final Map<String, Integer> colors = new HashMap<>();
+
+    NotificationRenderer(Context context, String channelId) {
+        this.context = context;
+        this.channelId = channelId;
+    }
+
+    synchronized Notification render(ServiceSession session) {
+        Entry entry = entries.get(session.notificationId);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(session.notificationId, entry);
+        }
+
+        int iconResource = resolveIcon(session.taskIcon);
+        Integer color = resolveColor(session.color);
+        if (entry.builder == null
+            || entry.iconResource != iconResource
+            || !equal(entry.color, color)
+            || entry.setOnlyAlertOnce != session.setOnlyAlertOnce
+            || entry.button != session.button
+            || (session.button && !session.buttonText.equals(entry.buttonText))) {
+            entry.iconResource = iconResource;
+            entry.color = color;
+            entry.setOnlyAlertOnce = session.setOnlyAlertOnce;
+            entry.button = session.button;
+            entry.buttonText = session.buttonText;
+            entry.builder = createBuilder(session, entry);
+        }
+
+        NotificationCompat.Builder builder = entry.builder
+            .setContentTitle(session.taskTitle)
+            .setContentText(session.getContentText())
+            .setNumber(Math.max(session.number, 0));
+        if (session.progressMax > Integer.MAX_VALUE) {
+            int scaled = (int) (Math.min(session.progressCurr, session.progressMax) * (double) PROGRESS_SCALE / session.progressMax);
+            builder.setProgress(PROGRESS_SCALE, scaled, session.progressIndeterminate);
+        } else if (session.progressMax > 0) {
+            builder.setProgress((int) session.progressMax, (int) Math.min(session.progressCurr, session.progressMax),
+                session.progressIndeterminate);
+        } else {
+            // Removes a bar shown by an earlier update
+            builder.setProgress(0, 0, false);
+        }
+        return builder.build();
+    }
+
+    // The notification is gone; its builder and PendingIntent are not needed anymore
+    synchronized void forget(int notificationId) {
+        entries.remove(notificationId);
+    }
+
+    private NotificationCompat.Builder createBuilder(ServiceSession session, Entry entry) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
+                .setSmallIcon(entry.iconResource)
+                .setOnlyAlertOnce(entry.setOnlyAlertOnce)
+                .setOngoing(true);
+        if (entry.color != null) {
+            builder.setColor(entry.color);
+        }
+        if (entry.button) {
+            if (entry.stopIntent == null) {
+                Intent stopIntent = new Intent(context, ForegroundService.class);
+                stopIntent.setAction("STOP_SERVICE");
+                stopIntent.putExtra("taskName", session.taskName);
+                entry.stopIntent = PendingIntent.getService(
+                    context,
+                    session.notificationId,
+                    stopIntent,
+                    PendingIntent.FLAG_UPDATE_CURRENT | (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M ? PendingIntent.FLAG_IMMUTABLE : 0)
+                );
+            }
+            builder.addAction(android.R.drawable.ic_menu_close_clear_cancel, entry.buttonText, entry.stopIntent);
+        }
+        return builder;
+    }
+
+    private int resolveIcon(String taskIcon) {
+        int iconResource = 0;
+        if (!DEFAULT_ICON.equals(taskIcon)) {
+            Integer cached = iconIds.get(taskIcon);
+            if (cached == null) {
+                cached = context.getResources().getIdentifier(taskIcon, "drawable", context.getPackageName());
+                iconIds.put(taskIcon, cached);
+            }
+            iconResource = cached;
+        }
+        // Fall back to the app icon
+        return iconResource != 0 ? iconResource : context.getApplicationInfo().icon;
+    }
+
+    @Nullable
+    private Integer resolveColor(String color) {
+        if (colors.containsKey(color)) {
+            return colors.get(color);
+        }
+        Integer parsed;
+        try {
+            parsed = Color.parseColor(color);
+        } catch (IllegalArgumentException e) {
+            // Use default color if parsing fails
+            parsed = null;
+        }
+        colors.put(color, parsed);
+        return parsed;
+    }
+
+    private static boolean equal(@Nullable Integer a, @Nullable Integer b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,113 @@
+package com.reactnativeforegroundservice;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latest-value-wins notification update pipeline. Callers merge their changes into the
+ * service state first and then submit; at most one notify() is posted per interval and a
+ * trailing flush renders whatever state is current when the interval ends.
+ */
+final class NotificationUpdateQueue {
+    static final double DEFAULT_MAX_UPDATES_PER_SECOND = 5;
+
+    interface Renderer {
+        void render();
+    }
+
+    static final class Stats {
+        final AtomicLong submitted = new AtomicLong();
+        final AtomicLong posted = new AtomicLong();
+        final AtomicLong coalesced = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        // notify() calls made, and renders skipped because nothing visible changed
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        // Jobs waiting on the render thread, and the most seen at once
+        final AtomicInteger queueDepth = new AtomicInteger();
+        final AtomicInteger maxQueueDepth = new AtomicInteger();
+        // Build plus notify() time of each post
+        final LatencyHistogram renderLatency = new LatencyHistogram();
+
+        void enqueued() {
+            int depth = queueDepth.incrementAndGet();
+            int max = maxQueueDepth.get();
+            while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+                max = maxQueueDepth.get();
+            }
+        }
+    }
+
+    private final Handler handler;
+    private final Renderer renderer;
+    private final Stats stats;
+    private final Runnable flush = this::flush;
+    // Set from the service's main thread
+    private volatile long minIntervalMs;
+    private long lastPostedAt = 0;
+    private boolean flushScheduled = false;
+    private boolean closed = false;
+
+    NotificationUpdateQueue(Handler handler, Renderer renderer, Stats stats) {
+        this.handler = handler;
+        this.renderer = renderer;
+        this.stats = stats;
+        setMaxUpdatesPerSecond(DEFAULT_MAX_UPDATES_PER_SECOND);
+    }
+
+    void setMaxUpdatesPerSecond(double maxUpdatesPerSecond) {
+        minIntervalMs = maxUpdatesPerSecond > 0 ? (long) Math.ceil(1000 / maxUpdatesPerSecond) : 0;
+    }
+
+    /**
+     * Must be called on the handler's thread, after the new state has been merged.
+     */
+    void submit() {
+        stats.submitted.incrementAndGet();
+        if (closed) {
+            stats.dropped.incrementAndGet();
+            return;
+        }
+        if (flushScheduled) {
+            // The pending flush will pick up this state
+            stats.coalesced.incrementAndGet();
+            return;
+        }
+
+        long nextAllowedAt = lastPostedAt + minIntervalMs;
+        if (SystemClock.uptimeMillis() >= nextAllowedAt) {
+            flush();
+        } else {
+            flushScheduled = true;
+            handler.postAtTime(flush, nextAllowedAt);
+        }
+    }
+
+    long getMinIntervalMs() {
+        return minIntervalMs;
+    }
+
+    // For notifications posted outside the queue, e.g. by startForeground
+    void markPosted() {
+        lastPostedAt = SystemClock.uptimeMillis();
+    }
+
+    void close() {
+        closed = true;
+        flushScheduled = false;
+        handler.removeCallbacks(flush);
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (closed) {
+            return;
+        }
+        lastPostedAt = SystemClock.uptimeMillis();
+        stats.posted.incrementAndGet();
+        renderer.render();
+    }
+}
@@ -0,0 +1,214 @@
+package com.reactnativeforegroundservice;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import androidx.annotation.Nullable;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * File-backed store for task payloads too large for Intent extras (1 MB binder limit) or
+ * WorkManager Data (10 KB). A payload is written once and only its handle travels through
+ * Intents, WorkManager and the bridge; readers map the file instead of copying it through
+ * a Parcel. Payloads outlive the process, since queued work may run after a restart, and
+ * are deleted on release. One left unreleased is deleted after MAX_AGE_MS, unless
+ * unfinished WorkManager work (tagged with workTag) or a run in this process still uses it.
+ */
+final class PayloadStore {
+    private static final String TAG = "RNForegroundService";
+    private static final String DIR_NAME = "RNForegroundServicePayloads";
+    private static final long MAX_AGE_MS = TimeUnit.DAYS.toMillis(7);
+    // A .tmp file older than this is from a write cut short by process death
+    private static final long TMP_MAX_AGE_MS = TimeUnit.MINUTES.toMillis(1);
+    // Handles come from JS; anything else could name a file outside the store
+    private static final Pattern HANDLE = Pattern.compile("[0-9a-f]{32}");
+    private static final String WORK_TAG_PREFIX = "payload:";
+
+    private static PayloadStore instance;
+
+    static synchronized PayloadStore get(Context context) {
+        if (instance == null) {
+            Context appContext = context.getApplicationContext();
+            instance = new PayloadStore(appContext, new File(appContext.getFilesDir(), DIR_NAME));
+            PayloadStore store = instance;
+            if (!BackgroundWorker.get().execute(store::deleteExpired)) {
+                Log.w(TAG, "Payload cleanup skipped, worker is full");
+            }
+        }
+        return instance;
+    }
+
+    // Tag on work requests whose input names handle
+    static String workTag(String handle) {
+        return WORK_TAG_PREFIX + handle;
+    }
+
+    private final Context context;
+    private final File dir;
+    // Handles of foreground task runs in this process, with the number of runs using each;
+    // guarded by itself
+    private final Map<String, Integer> inUse = new HashMap<>();
+
+    private PayloadStore(Context context, File dir) {
+        this.context = context;
+        this.dir = dir;
+    }
+
+    /**
+     * Stores data and returns its handle. The file is renamed into place once complete, so
+     * a handle never names a partial payload.
+     */
+    String put(byte[] data) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+        String handle = UUID.randomUUID().toString().replace("-", "");
+        File tmp = new File(dir, handle + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+            out.getFD().sync();
+        }
+        if (!tmp.renameTo(new File(dir, handle))) {
+            tmp.delete();
+            throw new IOException("Cannot store payload " + handle);
+        }
+        return handle;
+    }
+
+    @Nullable
+    File getFile(String handle) {
+        if (handle == null || !HANDLE.matcher(handle).matches()) {
+            return null;
+        }
+        File file = new File(dir, handle);
+        return file.isFile() ? file : null;
+    }
+
+    // Read-only mapping of the payload; the pages are shared with the file cache
+    MappedByteBuffer map(String handle) throws IOException {
+        File file = getFile(handle);
+        if (file == null) {
+            throw new IOException("Unknown payload " + handle);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    String readString(String handle) throws IOException {
+        return StandardCharsets.UTF_8.decode(map(handle)).toString();
+    }
+
+    boolean release(String handle) {
+        synchronized (inUse) {
+            inUse.remove(handle);
+        }
+        File file = getFile(handle);
+        return file != null && file.delete();
+    }
+
+    // Keeps handle from expiring while a foreground run of this process may still read it;
+    // each call is paired with an unmarkInUse once the run ends
+    void markInUse(String handle) {
+        synchronized (inUse) {
+            Integer runs = inUse.get(handle);
+            inUse.put(handle, runs == null ? 1 : runs + 1);
+        }
+    }
+
+    void unmarkInUse(String handle) {
+        synchronized (inUse) {
+            Integer runs = inUse.get(handle);
+            if (runs == null || runs <= 1) {
+                inUse.remove(handle);
+            } else {
+                inUse.put(handle, runs - 1);
+            }
+        }
+    }
+
+    /**
+     * { handle, uri, size } for JS, which can read the file URI directly instead of
+     * pulling the payload through the bridge.
+     */
+    @Nullable
+    WritableMap describe(String handle) {
+        File file = getFile(handle);
+        if (file == null) {
+            return null;
+        }
+        WritableMap map = Arguments.createMap();
+        map.putString("handle", handle);
+        map.putString("uri", Uri.fromFile(file).toString());
+        map.putDouble("size", file.length());
+        return map;
+    }
+
+    /**
+     * Adds payload (the handle) and payloadUri to headless task data.
+     */
+    void putPayloadRef(WritableMap data, String handle) {
+        data.putString("payload", handle);
+        File file = getFile(handle);
+        if (file != null) {
+            data.putString("payloadUri", Uri.fromFile(file).toString());
+        }
+    }
+
+    private void deleteExpired() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (File file : files) {
+            boolean partial = file.getName().endsWith(".tmp");
+            long maxAge = partial ? TMP_MAX_AGE_MS : MAX_AGE_MS;
+            if (file.lastModified() < now - maxAge && (partial || !isReferenced(file.getName()))) {
+                file.delete();
+            }
+        }
+    }
+
+    // Called on a background thread; blocks on the WorkManager database
+    private boolean isReferenced(String handle) {
+        synchronized (inUse) {
+            if (inUse.containsKey(handle)) {
+                return true;
+            }
+        }
+        try {
+            List<WorkInfo> infos = WorkManager.getInstance(context).getWorkInfosByTag(workTag(handle)).get();
+            for (WorkInfo info : infos) {
+                // Enqueued, blocked, running, backing off or periodic
+                if (!info.getState().isFinished()) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (Exception e) {
+            // Kept until a later sweep can tell
+            Log.w(TAG, "Cannot check work for payload " + handle, e);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.reactnativeforegroundservice;
+
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Progress slots JS writes into with synchronous primitive calls, one per logical service.
+ * curr and max are longs, so byte counts past 2 GB fit; a per-slot sequence number makes
+ * the pair a seqlock, so the sampler never sees them half updated. The service samples the
+ * slots at its notification refresh rate; the first write after a sample wakes it, later
+ * ones until the next sample are plain stores.
+ */
+final class ProgressChannel {
+    static final int CAPACITY = 16;
+
+    interface Sink {
+        void onProgress(String taskName, long curr, long max);
+    }
+
+    private static ProgressChannel instance;
+
+    static synchronized ProgressChannel get() {
+        if (instance == null) {
+            instance = new ProgressChannel();
+        }
+        return instance;
+    }
+
+    // Guarded by this; null marks a free slot
+    private final String[] names = new String[CAPACITY];
+    // Written by the JS thread only; a slot's sequence is odd while a write is in progress
+    private final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private final AtomicLongArray currs = new AtomicLongArray(CAPACITY);
+    // -1 until the first write after open
+    private final AtomicLongArray maxes = new AtomicLongArray(CAPACITY);
+    private final AtomicBoolean samplePending = new AtomicBoolean(false);
+    @Nullable
+    private volatile Runnable wake;
+    // Sampling thread only: each slot's owner and value at the last sample
+    private final String[] sampledNames = new String[CAPACITY];
+    private final long[] sampledCurrs = new long[CAPACITY];
+    private final long[] sampledMaxes = new long[CAPACITY];
+
+    private ProgressChannel() {
+    }
+
+    /**
+     * Returns the slot for taskName, opening it if needed, or -1 if all slots are taken.
+     */
+    synchronized int open(String taskName) {
+        int free = -1;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (taskName.equals(names[i])) {
+                return i;
+            }
+            if (names[i] == null && free < 0) {
+                free = i;
+            }
+        }
+        if (free >= 0) {
+            names[free] = taskName;
+            store(free, 0, -1);
+        }
+        return free;
+    }
+
+    synchronized void close(int slot) {
+        if (slot >= 0 && slot < CAPACITY) {
+            names[slot] = null;
+        }
+    }
+
+    boolean write(int slot, long curr, long max) {
+        if (slot < 0 || slot >= CAPACITY || max < 0) {
+            return false;
+        }
+        store(slot, curr, max);
+        if (samplePending.compareAndSet(false, true)) {
+            Runnable sampler = wake;
+            if (sampler != null) {
+                sampler.run();
+            }
+        }
+        return true;
+    }
+
+    private void store(int slot, long curr, long max) {
+        sequences.incrementAndGet(slot);
+        currs.set(slot, curr);
+        maxes.set(slot, max);
+        sequences.incrementAndGet(slot);
+    }
+
+    /**
+     * Sets what wakes the sampling service, or null while there is none. Writes made
+     * while no service was attached wake the new one right away.
+     */
+    void setWake(@Nullable Runnable wake) {
+        this.wake = wake;
+        if (wake != null && samplePending.get()) {
+            wake.run();
+        }
+    }
+
+    /**
+     * Hands every slot written since the last sample to sink.
+     */
+    void sample(Sink sink) {
+        samplePending.set(false);
+        for (int i = 0; i < CAPACITY; i++) {
+            String name;
+            synchronized (this) {
+                name = names[i];
+            }
+            long sequence;
+            long curr;
+            long max;
+            do {
+                sequence = sequences.get(i);
+                curr = currs.get(i);
+                max = maxes.get(i);
+            } while ((sequence & 1) != 0 || sequence != sequences.get(i));
+            // Compared by identity: a slot reopened for the same name is a new channel
+            if (name == null || max == -1
+                || (name == sampledNames[i] && curr == sampledCurrs[i] && max == sampledMaxes[i])) {
+                continue;
+            }
+            sampledNames[i] = name;
+            sampledCurrs[i] = curr;
+            sampledMaxes[i] = max;
+            sink.onProgress(name, curr, max);
+        }
+    }
+}
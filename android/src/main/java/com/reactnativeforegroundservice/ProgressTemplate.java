@@ -0,0 +1,126 @@
+package com.reactnativeforegroundservice;
+
+import java.util.Locale;
+
+/**
+ * Fills a notification text template from raw progress counters, so JS only sends
+ * numbers. Placeholders: {current}, {max}, {percent}, {rate} (per second, smoothed) and
+ * {eta}. Unknown placeholders are left as they are.
+ */
+final class ProgressTemplate {
+    static final String UNIT_COUNT = "count";
+    static final String UNIT_BYTES = "bytes";
+
+    /**
+     * Exponentially weighted throughput of a progress counter. Samples closer together
+     * than MIN_SAMPLE_INTERVAL_MS are merged so a burst of small updates doesn't skew it.
+     * When no sample arrives for STALL_AFTER_MS the rate fades as if zero-progress
+     * samples kept coming, so a stalled transfer doesn't show its last speed forever.
+     */
+    static final class RateEstimator {
+        private static final long MIN_SAMPLE_INTERVAL_MS = 250;
+        // Weight of the newest sample
+        private static final double ALPHA = 0.3;
+        private static final long STALL_AFTER_MS = 2000;
+        // Below this fraction of the last rate the counter counts as stopped
+        private static final double STOPPED_FRACTION = 0.01;
+
+        private long lastValue;
+        private long lastAt = 0;
+        private double rate = 0;
+
+        void sample(long value, long now) {
+            if (lastAt == 0 || value < lastValue) {
+                // First sample, or the counter started over
+                lastValue = value;
+                lastAt = now;
+                rate = 0;
+                return;
+            }
+            long elapsed = now - lastAt;
+            if (elapsed < MIN_SAMPLE_INTERVAL_MS) {
+                return;
+            }
+            double instant = (value - lastValue) * 1000.0 / elapsed;
+            rate = rate == 0 ? instant : ALPHA * instant + (1 - ALPHA) * rate;
+            lastValue = value;
+            lastAt = now;
+        }
+
+        // Per second at now, 0 until two samples were taken
+        double getRate(long now) {
+            long idle = now - lastAt;
+            if (rate == 0 || idle <= STALL_AFTER_MS) {
+                return rate;
+            }
+            double fade = Math.pow(1 - ALPHA, (idle - STALL_AFTER_MS) / (double) STALL_AFTER_MS);
+            return fade < STOPPED_FRACTION ? 0 : rate * fade;
+        }
+    }
+
+    private ProgressTemplate() {
+    }
+
+    static String format(String template, long current, long max, double rate, String unit) {
+        StringBuilder out = new StringBuilder(template.length() + 16);
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            int close = c == '{' ? template.indexOf('}', i) : -1;
+            if (close < 0) {
+                out.append(c);
+                i++;
+                continue;
+            }
+            String name = template.substring(i + 1, close);
+            switch (name) {
+                case "current":
+                    out.append(current);
+                    break;
+                case "max":
+                    out.append(max);
+                    break;
+                case "percent":
+                    out.append(max > 0 ? (int) (current * 100.0 / max) : 0);
+                    break;
+                case "rate":
+                    out.append(formatRate(rate, unit));
+                    break;
+                case "eta":
+                    out.append(formatEta(rate > 0 && max > current ? (long) Math.ceil((max - current) / rate) : -1));
+                    break;
+                default:
+                    out.append(template, i, close + 1);
+                    break;
+            }
+            i = close + 1;
+        }
+        return out.toString();
+    }
+
+    private static String formatRate(double rate, String unit) {
+        if (!UNIT_BYTES.equals(unit)) {
+            return String.format(Locale.getDefault(), "%.1f", rate);
+        }
+        String[] units = {"B", "KB", "MB", "GB"};
+        int scale = 0;
+        while (rate >= 1024 && scale < units.length - 1) {
+            rate /= 1024;
+            scale++;
+        }
+        return String.format(Locale.getDefault(), "%.1f %s", rate, units[scale]);
+    }
+
+    private static String formatEta(long seconds) {
+        if (seconds < 0) {
+            return "--";
+        }
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return (seconds / 60) + "m";
+        }
+        return (seconds / 3600) + "h " + (seconds % 3600 / 60) + "m";
+    }
+}
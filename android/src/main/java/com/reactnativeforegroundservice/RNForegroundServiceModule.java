@@ -1,22 +1,36 @@
 package com.reactnativeforegroundservice;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.bridge.Arguments;
-import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.facebook.react.module.annotations.ReactModule;
 
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkContinuation;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.WorkRequest;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
 import android.content.Intent;
 import android.content.Context;
 import android.os.Build;
-import android.app.ActivityManager;
 import android.content.pm.PackageManager;
 import android.content.pm.ServiceInfo;
 import android.net.Uri;
@@ -26,9 +40,10 @@ import androidx.core.content.ContextCompat;
 import androidx.core.app.NotificationManagerCompat;
 
 @ReactModule(name = RNForegroundServiceModule.NAME)
-public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
+public class RNForegroundServiceModule extends RNForegroundServiceSpec {
     public static final String NAME = "RNForegroundService";
     private ReactApplicationContext reactContext;
+    private final ServiceConnector serviceConnector;
     
     // Enhanced permission arrays for different Android versions
     private static final String[] REQUIRED_PERMISSIONS_API_33 = {
@@ -45,6 +60,20 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     public RNForegroundServiceModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.serviceConnector = new ServiceConnector(reactContext);
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        NativeEventBus.get().attach(reactContext);
+    }
+
+    @Override
+    public void invalidate() {
+        NativeEventBus.get().detach(reactContext);
+        serviceConnector.unbind();
+        super.invalidate();
     }
 
     @Override
@@ -53,62 +82,36 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
         return NAME;
     }
 
-    // Enhanced event emission for React Native
+    // Events go through the bus, which batches them and holds them while JS is not attached
     private void sendEvent(String eventName, WritableMap params) {
-        reactContext
-            .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-            .emit(eventName, params);
+        NativeEventBus.get().post(eventName, params);
+    }
+
+    // Errors and stops skip batching
+    private void sendCriticalEvent(String eventName, WritableMap params) {
+        NativeEventBus.get().postCritical(eventName, params);
     }
 
     @ReactMethod
     public void startService(ReadableMap options, Promise promise) {
         try {
-            // Enhanced validation for Android 14+
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
-                if (!options.hasKey("serviceType")) {
-                    promise.reject("VALIDATION_ERROR", "serviceType is required for Android 14+");
-                    return;
-                }
-            }
-
-            // Check all required permissions before starting
-            if (!hasAllRequiredPermissions()) {
-                promise.reject("PERMISSION_ERROR", "Missing required permissions");
-                return;
-            }
-
-            Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
-            serviceIntent.setAction("START_SERVICE");
-            
-            // Enhanced option copying with validation
-            copyOptionsToIntent(options, serviceIntent);
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                reactContext.startForegroundService(serviceIntent);
-            } else {
-                reactContext.startService(serviceIntent);
-            }
-            
-            // Send success event to React Native
-            WritableMap eventData = Arguments.createMap();
-            eventData.putString("status", "started");
-            sendEvent("onServiceStart", eventData);
-            
+            doStartService(options);
             promise.resolve(null);
+        } catch (ModuleException e) {
+            promise.reject(e.code, e.getMessage());
         } catch (Exception e) {
             // Send error event to React Native
             WritableMap errorData = Arguments.createMap();
             errorData.putString("error", e.getMessage());
-            sendEvent("onServiceError", errorData);
+            sendCriticalEvent("onServiceError", errorData);
             promise.reject("START_SERVICE_ERROR", e.getMessage());
         }
     }
 
     @ReactMethod
-    public void stopService(Promise promise) {
+    public void stopService(@Nullable String taskName, Promise promise) {
         try {
-            Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
-            reactContext.stopService(serviceIntent);
+            doStopService(taskName);
             promise.resolve(null);
         } catch (Exception e) {
             promise.reject("STOP_SERVICE_ERROR", e.getMessage());
@@ -118,33 +121,7 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void updateService(ReadableMap options, Promise promise) {
         try {
-            Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
-            serviceIntent.setAction("UPDATE_NOTIFICATION");
-            
-            // Pass updated options to the service
-            if (options.hasKey("taskTitle")) {
-                serviceIntent.putExtra("taskTitle", options.getString("taskTitle"));
-            }
-            if (options.hasKey("taskDesc")) {
-                serviceIntent.putExtra("taskDesc", options.getString("taskDesc"));
-            }
-            if (options.hasKey("progress")) {
-                ReadableMap progress = options.getMap("progress");
-                if (progress != null) {
-                    serviceIntent.putExtra("progressMax", progress.getInt("max"));
-                    serviceIntent.putExtra("progressCurr", progress.getInt("curr"));
-                    if (progress.hasKey("indeterminate")) {
-                        serviceIntent.putExtra("progressIndeterminate", progress.getBoolean("indeterminate"));
-                    }
-                }
-            }
-
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                reactContext.startForegroundService(serviceIntent);
-            } else {
-                reactContext.startService(serviceIntent);
-            }
-            
+            doUpdateService(options);
             promise.resolve(null);
         } catch (Exception e) {
             promise.reject("UPDATE_SERVICE_ERROR", e.getMessage());
@@ -154,14 +131,7 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void isServiceRunning(Promise promise) {
         try {
-            ActivityManager manager = (ActivityManager) reactContext.getSystemService(Context.ACTIVITY_SERVICE);
-            for (ActivityManager.RunningServiceInfo service : manager.getRunningServices(Integer.MAX_VALUE)) {
-                if (ForegroundService.class.getName().equals(service.service.getClassName())) {
-                    promise.resolve(true);
-                    return;
-                }
-            }
-            promise.resolve(false);
+            promise.resolve(ServiceStateRegistry.isRunning());
         } catch (Exception e) {
             promise.reject("CHECK_SERVICE_ERROR", e.getMessage());
         }
@@ -170,21 +140,7 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void checkPermission(Promise promise) {
         try {
-            boolean hasNotificationPermission = true;
-            boolean hasForegroundServicePermission = true;
-
-            // Check notification permission (Android 13+)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                hasNotificationPermission = NotificationManagerCompat.from(reactContext).areNotificationsEnabled();
-            }
-
-            // Check foreground service permission (Android 9+)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
-                int permission = ContextCompat.checkSelfPermission(reactContext, Manifest.permission.FOREGROUND_SERVICE);
-                hasForegroundServicePermission = permission == PackageManager.PERMISSION_GRANTED;
-            }
-
-            promise.resolve(hasNotificationPermission && hasForegroundServicePermission);
+            promise.resolve(hasBasicPermissions());
         } catch (Exception e) {
             promise.reject("CHECK_PERMISSION_ERROR", e.getMessage());
         }
@@ -238,22 +194,50 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getServiceStatus(Promise promise) {
         try {
-            WritableMap status = Arguments.createMap();
-            boolean isRunning = isServiceRunning();
-            status.putBoolean("isRunning", isRunning);
-            
-            if (isRunning) {
-                status.putDouble("startTime", System.currentTimeMillis());
-                status.putString("serviceType", "foregroundService");
-                status.putInt("notificationId", 1); // Default notification ID
-            }
-            
-            promise.resolve(status);
+            promise.resolve(buildServiceStatus());
         } catch (Exception e) {
             promise.reject("GET_STATUS_ERROR", e.getMessage());
         }
     }
 
+    // Synchronous reads, served from ServiceStateRegistry without touching the service
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean isServiceRunningSync() {
+        return ServiceStateRegistry.isRunning();
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getServiceCountSync() {
+        return ServiceStateRegistry.getServiceCount();
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getServiceStatusSync() {
+        return buildServiceStatus();
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean checkPermissionSync() {
+        return hasBasicPermissions();
+    }
+
+    // Progress channel: JS stores counters with primitive sync calls, the service samples them
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double openProgressChannelSync(String taskName) {
+        return ProgressChannel.get().open(taskName);
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean writeProgressSync(double channel, double curr, double max) {
+        return ProgressChannel.get().write((int) channel, (long) curr, (long) max);
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public boolean closeProgressChannelSync(double channel) {
+        ProgressChannel.get().close((int) channel);
+        return true;
+    }
+
     @ReactMethod
     public void requestBatteryOptimizationExemption(Promise promise) {
         try {
@@ -279,18 +263,8 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getServiceMetrics(Promise promise) {
         try {
-            if (isServiceRunning()) {
-                WritableMap metrics = Arguments.createMap();
-                metrics.putDouble("uptime", System.currentTimeMillis());
-                metrics.putInt("tasksExecuted", 0);
-                metrics.putInt("tasksSucceeded", 0);
-                metrics.putInt("tasksFailed", 0);
-                metrics.putDouble("memoryUsage", 0);
-                metrics.putString("batteryImpact", "low");
-                promise.resolve(metrics);
-            } else {
-                promise.reject("SERVICE_NOT_RUNNING", "Service is not currently running");
-            }
+            // Cheap enough to poll; uptime is 0 while the service is not running
+            promise.resolve(ServiceMetrics.snapshot());
         } catch (Exception e) {
             promise.reject("GET_METRICS_ERROR", e.getMessage());
         }
@@ -299,10 +273,8 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void getServiceCount(Promise promise) {
         try {
-            // For now, return 1 if service is running, 0 if not
-            // In a more advanced implementation, you could track multiple service instances
-            boolean isRunning = isServiceRunning();
-            promise.resolve(isRunning ? 1 : 0);
+            // Number of logical services (by taskName) hosted by the foreground service
+            promise.resolve(ServiceStateRegistry.getServiceCount());
         } catch (Exception e) {
             promise.reject("GET_SERVICE_COUNT_ERROR", e.getMessage());
         }
@@ -313,11 +285,12 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
         try {
             Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
             serviceIntent.setAction("STOP_ALL");
+            ServiceStateRegistry.markStopping();
             reactContext.stopService(serviceIntent);
             
             WritableMap eventData = Arguments.createMap();
             eventData.putString("status", "stopped_all");
-            sendEvent("onServiceStop", eventData);
+            sendCriticalEvent("onServiceStop", eventData);
             
             promise.resolve(null);
         } catch (Exception e) {
@@ -328,8 +301,8 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void registerForegroundTask(String taskName, Promise promise) {
         try {
-            // This would integrate with React Native's AppRegistry for headless tasks
-            // For now, just acknowledge the registration
+            // The JS side registers the task with AppRegistry, native only needs its name
+            HeadlessTaskRunner.registerTask(taskName);
             promise.resolve(null);
         } catch (Exception e) {
             promise.reject("REGISTER_TASK_ERROR", e.getMessage());
@@ -338,52 +311,658 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void runTask(ReadableMap taskConfig, Promise promise) {
+        try {
+            doRunTask(taskConfig);
+            promise.resolve(null);
+        } catch (ModuleException e) {
+            promise.reject(e.code, e.getMessage());
+        } catch (Exception e) {
+            promise.reject("RUN_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void stopTask(String taskName, Promise promise) {
         try {
             Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
-            serviceIntent.setAction("RUN_TASK");
-            
-            if (taskConfig.hasKey("taskName")) {
-                serviceIntent.putExtra("taskName", taskConfig.getString("taskName"));
-            }
-            if (taskConfig.hasKey("delay")) {
-                serviceIntent.putExtra("delay", taskConfig.getInt("delay"));
+            serviceIntent.setAction("STOP_TASK");
+            serviceIntent.putExtra("taskName", taskName);
+
+            if (isServiceRunning()) {
+                sendCommand(serviceIntent);
             }
-            if (taskConfig.hasKey("onLoop")) {
-                serviceIntent.putExtra("onLoop", taskConfig.getBoolean("onLoop"));
+
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("STOP_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void cancelNotification(double notificationId, Promise promise) {
+        try {
+            doCancelNotification((int) notificationId);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("CANCEL_NOTIFICATION_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getNotificationUpdateStats(Promise promise) {
+        try {
+            NotificationUpdateQueue.Stats stats = ForegroundService.getUpdateStats();
+            WritableMap result = Arguments.createMap();
+            result.putDouble("submitted", stats.submitted.get());
+            result.putDouble("posted", stats.posted.get());
+            result.putDouble("coalesced", stats.coalesced.get());
+            result.putDouble("dropped", stats.dropped.get());
+            result.putDouble("sent", stats.sent.get());
+            result.putDouble("skipped", stats.skipped.get());
+            result.putInt("queueDepth", stats.queueDepth.get());
+            result.putInt("maxQueueDepth", stats.maxQueueDepth.get());
+            result.putMap("renderLatency", stats.renderLatency.toWritableMap());
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("GET_NOTIFICATION_STATS_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getRetryState(Promise promise) {
+        try {
+            promise.resolve(getTaskScheduler().getRetryState());
+        } catch (Exception e) {
+            promise.reject("GET_RETRY_STATE_ERROR", e.getMessage());
+        }
+    }
+
+    // Native task scheduler - JS TaskManager proxies to these methods
+    @ReactMethod
+    public void addTask(ReadableMap config, Promise promise) {
+        try {
+            promise.resolve(doAddTask(config));
+        } catch (ModuleException e) {
+            promise.reject(e.code, e.getMessage());
+        } catch (Exception e) {
+            promise.reject("ADD_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void updateTask(String taskId, ReadableMap config, Promise promise) {
+        try {
+            doUpdateTask(taskId, config);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("UPDATE_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void pauseTask(String taskId, Promise promise) {
+        try {
+            getTaskScheduler().pauseTask(taskId);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("PAUSE_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void resumeTask(String taskId, Promise promise) {
+        try {
+            getTaskScheduler().resumeTask(taskId);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("RESUME_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void removeTask(String taskId, Promise promise) {
+        try {
+            getTaskScheduler().removeTask(taskId);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("REMOVE_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void removeAllTasks(Promise promise) {
+        try {
+            getTaskScheduler().removeAllTasks();
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("REMOVE_ALL_TASKS_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void completeTask(String taskId, boolean success, double attempt, Promise promise) {
+        try {
+            ScheduledTask task = getTaskScheduler().completeTask(taskId, success, (int) attempt);
+            promise.resolve(task != null ? task.toWritableMap() : null);
+        } catch (Exception e) {
+            promise.reject("COMPLETE_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void releaseTask(String taskId, double attempt, Promise promise) {
+        try {
+            getTaskScheduler().releaseTask(taskId, (int) attempt);
+            promise.resolve(null);
+        } catch (Exception e) {
+            promise.reject("RELEASE_TASK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getAllTasks(Promise promise) {
+        try {
+            WritableMap result = Arguments.createMap();
+            for (ScheduledTask task : getTaskScheduler().getTasks()) {
+                result.putMap(task.taskId, task.toWritableMap());
             }
+            promise.resolve(result);
+        } catch (Exception e) {
+            promise.reject("GET_TASKS_ERROR", e.getMessage());
+        }
+    }
 
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                reactContext.startForegroundService(serviceIntent);
+    // WorkManager-backed work: persisted, survives reboots and needs no foreground service
+    @ReactMethod
+    public void enqueueWork(ReadableMap config, Promise promise) {
+        try {
+            WorkManager workManager = WorkManager.getInstance(reactContext);
+            String uniqueName = config.hasKey("uniqueName") ? config.getString("uniqueName") : null;
+            String policy = config.hasKey("existingWorkPolicy") ? config.getString("existingWorkPolicy") : null;
+            WorkRequest request;
+            if (WorkRequests.isPeriodic(config)) {
+                PeriodicWorkRequest periodic = WorkRequests.buildPeriodic(config);
+                if (uniqueName != null) {
+                    workManager.enqueueUniquePeriodicWork(uniqueName, WorkRequests.parsePeriodicWorkPolicy(policy), periodic);
+                } else {
+                    workManager.enqueue(periodic);
+                }
+                request = periodic;
             } else {
-                reactContext.startService(serviceIntent);
+                OneTimeWorkRequest oneTime = WorkRequests.buildOneTime(config);
+                if (uniqueName != null) {
+                    workManager.enqueueUniqueWork(uniqueName, WorkRequests.parseWorkPolicy(policy), oneTime);
+                } else {
+                    workManager.enqueue(oneTime);
+                }
+                request = oneTime;
             }
-            
+            promise.resolve(request.getId().toString());
+        } catch (IllegalArgumentException e) {
+            promise.reject("VALIDATION_ERROR", e.getMessage());
+        } catch (Exception e) {
+            promise.reject("ENQUEUE_WORK_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Enqueues configs as a unique chain: each request starts once the previous one succeeded.
+     */
+    @ReactMethod
+    public void enqueueWorkChain(String uniqueName, ReadableArray configs, @Nullable String existingWorkPolicy, Promise promise) {
+        try {
+            if (configs.size() == 0) {
+                throw new IllegalArgumentException("A work chain needs at least one request");
+            }
+            WritableArray ids = Arguments.createArray();
+            WorkContinuation chain = null;
+            for (int i = 0; i < configs.size(); i++) {
+                OneTimeWorkRequest request = WorkRequests.buildOneTime(configs.getMap(i));
+                chain = chain == null
+                    ? WorkManager.getInstance(reactContext).beginUniqueWork(uniqueName, WorkRequests.parseWorkPolicy(existingWorkPolicy), request)
+                    : chain.then(request);
+                ids.pushString(request.getId().toString());
+            }
+            chain.enqueue();
+            promise.resolve(ids);
+        } catch (IllegalArgumentException e) {
+            promise.reject("VALIDATION_ERROR", e.getMessage());
+        } catch (Exception e) {
+            promise.reject("ENQUEUE_WORK_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void cancelWork(String uniqueName, Promise promise) {
+        try {
+            WorkManager.getInstance(reactContext).cancelUniqueWork(uniqueName);
             promise.resolve(null);
         } catch (Exception e) {
-            promise.reject("RUN_TASK_ERROR", e.getMessage());
+            promise.reject("CANCEL_WORK_ERROR", e.getMessage());
         }
     }
 
     @ReactMethod
-    public void cancelNotification(int notificationId, Promise promise) {
+    public void getWorkInfo(String uniqueName, Promise promise) {
         try {
-            Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
-            serviceIntent.setAction("CANCEL_NOTIFICATION");
-            serviceIntent.putExtra("notificationId", notificationId);
-            
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                reactContext.startForegroundService(serviceIntent);
-            } else {
-                reactContext.startService(serviceIntent);
+            ListenableFuture<List<WorkInfo>> future = WorkManager.getInstance(reactContext).getWorkInfosForUniqueWork(uniqueName);
+            future.addListener(() -> {
+                try {
+                    WritableArray infos = Arguments.createArray();
+                    for (WorkInfo info : future.get()) {
+                        WritableMap entry = Arguments.createMap();
+                        entry.putString("id", info.getId().toString());
+                        entry.putString("state", info.getState().name().toLowerCase(Locale.ROOT));
+                        entry.putInt("runAttemptCount", info.getRunAttemptCount());
+                        infos.pushMap(entry);
+                    }
+                    promise.resolve(infos);
+                } catch (Exception e) {
+                    promise.reject("GET_WORK_INFO_ERROR", e.getMessage());
+                }
+            }, Runnable::run);
+        } catch (Exception e) {
+            promise.reject("GET_WORK_INFO_ERROR", e.getMessage());
+        }
+    }
+
+    // Task payloads: stored in files, only handles go through Intents, WorkManager and the bridge
+    @ReactMethod
+    public void createPayload(String data, Promise promise) {
+        try {
+            PayloadStore store = PayloadStore.get(reactContext);
+            promise.resolve(store.describe(store.put(data.getBytes(StandardCharsets.UTF_8))));
+        } catch (Exception e) {
+            promise.reject("CREATE_PAYLOAD_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void getPayloadInfo(String handle, Promise promise) {
+        try {
+            WritableMap info = PayloadStore.get(reactContext).describe(handle);
+            if (info == null) {
+                promise.reject("PAYLOAD_NOT_FOUND", "Unknown payload " + handle);
+                return;
             }
-            
+            promise.resolve(info);
+        } catch (Exception e) {
+            promise.reject("GET_PAYLOAD_INFO_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void readPayload(String handle, Promise promise) {
+        try {
+            PayloadStore store = PayloadStore.get(reactContext);
+            if (store.getFile(handle) == null) {
+                promise.reject("PAYLOAD_NOT_FOUND", "Unknown payload " + handle);
+                return;
+            }
+            promise.resolve(store.readString(handle));
+        } catch (Exception e) {
+            promise.reject("READ_PAYLOAD_ERROR", e.getMessage());
+        }
+    }
+
+    /**
+     * Hands a task's result payload to JS listeners as an onTaskResult event carrying
+     * { taskName, handle, uri, size }. The event is kept until JS is attached to take it.
+     */
+    @ReactMethod
+    public void publishTaskResult(String taskName, String handle, Promise promise) {
+        try {
+            WritableMap result = PayloadStore.get(reactContext).describe(handle);
+            if (result == null) {
+                promise.reject("PAYLOAD_NOT_FOUND", "Unknown payload " + handle);
+                return;
+            }
+            result.putString("taskName", taskName);
+            NativeEventBus.get().postRetained("onTaskResult", result, null);
             promise.resolve(null);
         } catch (Exception e) {
-            promise.reject("CANCEL_NOTIFICATION_ERROR", e.getMessage());
+            promise.reject("PUBLISH_TASK_RESULT_ERROR", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void releasePayload(String handle, Promise promise) {
+        try {
+            promise.resolve(PayloadStore.get(reactContext).release(handle));
+        } catch (Exception e) {
+            promise.reject("RELEASE_PAYLOAD_ERROR", e.getMessage());
+        }
+    }
+
+    // Required by NativeEventEmitter; events are emitted regardless of listener count
+    @ReactMethod
+    public void addListener(String eventName) {
+    }
+
+    @ReactMethod
+    public void removeListeners(double count) {
+    }
+
+    /**
+     * Applies a list of operations in one native pass, so startup bursts cost a single
+     * bridge crossing. Every op gets a result entry; a failing op doesn't stop the rest.
+     */
+    @ReactMethod
+    public void executeBatch(ReadableArray ops, Promise promise) {
+        try {
+            WritableArray results = Arguments.createArray();
+            for (int i = 0; i < ops.size(); i++) {
+                WritableMap result = Arguments.createMap();
+                ReadableMap op = ops.getMap(i);
+                try {
+                    Object value = executeOperation(op);
+                    result.putBoolean("ok", true);
+                    if (value instanceof String) {
+                        result.putString("value", (String) value);
+                    }
+                } catch (ModuleException e) {
+                    result.putBoolean("ok", false);
+                    result.putString("code", e.code);
+                    result.putString("message", e.getMessage());
+                } catch (Exception e) {
+                    result.putBoolean("ok", false);
+                    result.putString("code", "BATCH_OPERATION_ERROR");
+                    result.putString("message", e.getMessage());
+                }
+                results.pushMap(result);
+            }
+            promise.resolve(results);
+        } catch (Exception e) {
+            promise.reject("EXECUTE_BATCH_ERROR", e.getMessage());
+        }
+    }
+
+    @Nullable
+    private Object executeOperation(@Nullable ReadableMap op) throws ModuleException {
+        if (op == null || !op.hasKey("op")) {
+            throw new ModuleException("VALIDATION_ERROR", "Batch operation must have an op");
+        }
+        String type = op.getString("op");
+        switch (type) {
+            case "start":
+                doStartService(requireMap(op, "options"));
+                return null;
+            case "update":
+                doUpdateService(requireMap(op, "options"));
+                return null;
+            case "stop":
+                doStopService(op.hasKey("taskName") ? op.getString("taskName") : null);
+                return null;
+            case "cancel":
+                doCancelNotification(op.getInt("notificationId"));
+                return null;
+            case "runTask":
+                doRunTask(requireMap(op, "config"));
+                return null;
+            case "addTask":
+                return doAddTask(requireMap(op, "config"));
+            case "updateTask":
+                doUpdateTask(op.getString("taskId"), requireMap(op, "config"));
+                return null;
+            case "removeTask":
+                getTaskScheduler().removeTask(op.getString("taskId"));
+                return null;
+            case "pauseTask":
+                getTaskScheduler().pauseTask(op.getString("taskId"));
+                return null;
+            case "resumeTask":
+                getTaskScheduler().resumeTask(op.getString("taskId"));
+                return null;
+            case "removeAllTasks":
+                getTaskScheduler().removeAllTasks();
+                return null;
+            case "setMaxConcurrentTasks":
+                getTaskScheduler().setMaxConcurrent(op.getInt("limit"));
+                return null;
+            default:
+                throw new ModuleException("VALIDATION_ERROR", "Unknown batch operation: " + type);
+        }
+    }
+
+    private static ReadableMap requireMap(ReadableMap op, String key) throws ModuleException {
+        ReadableMap value = op.hasKey(key) ? op.getMap(key) : null;
+        if (value == null) {
+            throw new ModuleException("VALIDATION_ERROR", op.getString("op") + " requires " + key);
+        }
+        return value;
+    }
+
+    // Operations shared by the single-call methods and executeBatch
+    private void doStartService(ReadableMap options) throws ModuleException {
+        // Enhanced validation for Android 14+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            if (!options.hasKey("serviceType")) {
+                throw new ModuleException("VALIDATION_ERROR", "serviceType is required for Android 14+");
+            }
+        }
+
+        // Check all required permissions before starting
+        if (!hasAllRequiredPermissions()) {
+            throw new ModuleException("PERMISSION_ERROR", "Missing required permissions");
+        }
+
+        Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
+        serviceIntent.setAction("START_SERVICE");
+        
+        // Enhanced option copying with validation
+        copyOptionsToIntent(options, serviceIntent);
+
+        sendCommand(serviceIntent);
+        
+        // Send success event to React Native
+        WritableMap eventData = Arguments.createMap();
+        eventData.putString("status", "started");
+        sendEvent("onServiceStart", eventData);
+    }
+
+    private void doStopService(@Nullable String taskName) {
+        if (taskName == null) {
+            // No name: stop the Android service with every logical service in it
+            Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
+            ServiceStateRegistry.markStopping();
+            reactContext.stopService(serviceIntent);
+        } else if (isServiceRunning()) {
+            Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
+            serviceIntent.setAction("STOP_SERVICE");
+            serviceIntent.putExtra("taskName", taskName);
+            sendCommand(serviceIntent);
+        }
+    }
+
+    private void doUpdateService(ReadableMap options) {
+        if (!isServiceRunning()) {
+            // Nothing to update; an intent would start the service with a default session
+            return;
+        }
+        Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
+        serviceIntent.setAction("UPDATE_NOTIFICATION");
+        
+        // Pass updated options to the service
+        if (options.hasKey("taskName")) {
+            serviceIntent.putExtra("taskName", options.getString("taskName"));
+        }
+        if (options.hasKey("taskTitle")) {
+            serviceIntent.putExtra("taskTitle", options.getString("taskTitle"));
+        }
+        if (options.hasKey("taskDesc")) {
+            serviceIntent.putExtra("taskDesc", options.getString("taskDesc"));
+        }
+        if (options.hasKey("progress")) {
+            ReadableMap progress = options.getMap("progress");
+            if (progress != null) {
+                serviceIntent.putExtra("progressMax", (long) progress.getDouble("max"));
+                serviceIntent.putExtra("progressCurr", (long) progress.getDouble("curr"));
+                if (progress.hasKey("indeterminate")) {
+                    serviceIntent.putExtra("progressIndeterminate", progress.getBoolean("indeterminate"));
+                }
+            }
+        }
+        if (options.hasKey("progressStep")) {
+            serviceIntent.putExtra("progressStep", options.getDouble("progressStep"));
+        }
+        if (options.hasKey("progressTemplate")) {
+            serviceIntent.putExtra("progressTemplate", options.getString("progressTemplate"));
+        }
+        if (options.hasKey("progressRateUnit")) {
+            serviceIntent.putExtra("progressRateUnit", options.getString("progressRateUnit"));
+        }
+        if (options.hasKey("maxUpdateRate")) {
+            serviceIntent.putExtra("maxUpdateRate", options.getDouble("maxUpdateRate"));
+        }
+
+        sendCommand(serviceIntent);
+    }
+
+    private void doRunTask(ReadableMap taskConfig) throws ModuleException {
+        if (!taskConfig.hasKey("taskName")) {
+            throw new ModuleException("VALIDATION_ERROR", "taskName is required");
+        }
+        String taskName = taskConfig.getString("taskName");
+        if (!HeadlessTaskRunner.isTaskRegistered(taskName)) {
+            throw new ModuleException("TASK_NOT_REGISTERED", "Task " + taskName + " has not been registered with registerForegroundTask");
+        }
+
+        Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
+        serviceIntent.setAction("RUN_TASK");
+        serviceIntent.putExtra("taskName", taskName);
+        if (taskConfig.hasKey("delay")) {
+            serviceIntent.putExtra("delay", (long) taskConfig.getDouble("delay"));
+        }
+        if (taskConfig.hasKey("loopDelay")) {
+            serviceIntent.putExtra("loopDelay", (long) taskConfig.getDouble("loopDelay"));
+        }
+        if (taskConfig.hasKey("onLoop")) {
+            serviceIntent.putExtra("onLoop", taskConfig.getBoolean("onLoop"));
+        }
+        if (taskConfig.hasKey("timeout")) {
+            serviceIntent.putExtra("timeout", (long) taskConfig.getDouble("timeout"));
+        }
+        if (taskConfig.hasKey("payload")) {
+            String payload = taskConfig.getString("payload");
+            PayloadStore store = PayloadStore.get(reactContext);
+            if (store.getFile(payload) == null) {
+                throw new ModuleException("PAYLOAD_NOT_FOUND", "Unknown payload " + payload);
+            }
+            serviceIntent.putExtra("payload", payload);
+        }
+
+        sendCommand(serviceIntent);
+    }
+
+    private void doCancelNotification(int notificationId) {
+        if (!isServiceRunning()) {
+            return;
+        }
+        Intent serviceIntent = new Intent(reactContext, ForegroundService.class);
+        serviceIntent.setAction("CANCEL_NOTIFICATION");
+        serviceIntent.putExtra("notificationId", notificationId);
+        
+        sendCommand(serviceIntent);
+    }
+
+    private String doAddTask(ReadableMap config) throws ModuleException {
+        if (!config.hasKey("taskId")) {
+            throw new ModuleException("VALIDATION_ERROR", "taskId is required");
+        }
+        ScheduledTask task = new ScheduledTask(config.getString("taskId"));
+        task.applyConfig(config);
+        getTaskScheduler().addTask(task);
+        return task.taskId;
+    }
+
+    private void doUpdateTask(String taskId, ReadableMap config) {
+        TaskScheduler scheduler = getTaskScheduler();
+        if (!scheduler.updateTask(taskId, config)) {
+            ScheduledTask task = new ScheduledTask(taskId);
+            task.applyConfig(config);
+            scheduler.addTask(task);
+        }
+    }
+
+    // Error with a promise rejection code, for validation failures inside shared operations
+    private static final class ModuleException extends Exception {
+        final String code;
+
+        ModuleException(String code, String message) {
+            super(message);
+            this.code = code;
         }
     }
 
     // Enhanced helper methods
+    private void sendCommand(Intent command) {
+        // Bound once; the binding connects whenever the service is running
+        serviceConnector.bind();
+        // Direct call when connected; intents are only needed to (re)start the service
+        if (serviceConnector.dispatch(command)) {
+            return;
+        }
+        // Stop, update and cancel commands are only sent to a running service
+        if (ForegroundService.isStartCommand(command)) {
+            ContextCompat.startForegroundService(reactContext, command);
+        }
+    }
+
+    private TaskScheduler getTaskScheduler() {
+        return ForegroundService.getTaskScheduler(reactContext);
+    }
+
+    private WritableMap buildServiceStatus() {
+        WritableMap status = Arguments.createMap();
+        ServiceStateRegistry.State state = ServiceStateRegistry.get();
+        status.putBoolean("isRunning", state.isRunning());
+        status.putString("state", state.phase);
+        
+        if (state.isRunning()) {
+            status.putDouble("startTime", state.createdAt);
+            status.putDouble("uptime", state.getUptime());
+            status.putString("serviceType", "foregroundService");
+            status.putInt("notificationId", ServiceStateRegistry.getForegroundNotificationId());
+            status.putInt("serviceCount", ServiceStateRegistry.getServiceCount());
+            WritableArray sessions = Arguments.createArray();
+            for (Map.Entry<String, Integer> entry : ServiceStateRegistry.getSessionNotificationIds().entrySet()) {
+                WritableMap session = Arguments.createMap();
+                session.putString("taskName", entry.getKey());
+                session.putInt("notificationId", entry.getValue());
+                sessions.pushMap(session);
+            }
+            status.putArray("sessions", sessions);
+        }
+        if (state.foregroundAt > 0) {
+            status.putDouble("foregroundTime", state.foregroundAt);
+        }
+        if (state.stoppingAt > 0) {
+            status.putDouble("stopTime", state.stoppingAt);
+        }
+        if (state.destroyedAt > 0) {
+            status.putDouble("destroyTime", state.destroyedAt);
+        }
+        return status;
+    }
+
+    private boolean hasBasicPermissions() {
+        boolean hasNotificationPermission = true;
+        boolean hasForegroundServicePermission = true;
+
+        // Check notification permission (Android 13+)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            hasNotificationPermission = NotificationManagerCompat.from(reactContext).areNotificationsEnabled();
+        }
+
+        // Check foreground service permission (Android 9+)
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            int permission = ContextCompat.checkSelfPermission(reactContext, Manifest.permission.FOREGROUND_SERVICE);
+            hasForegroundServicePermission = permission == PackageManager.PERMISSION_GRANTED;
+        }
+
+        return hasNotificationPermission && hasForegroundServicePermission;
+    }
+
     private boolean hasAllRequiredPermissions() {
         String[] permissions = Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE 
             ? REQUIRED_PERMISSIONS_API_34 
@@ -430,8 +1009,8 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
         if (options.hasKey("progress")) {
             ReadableMap progress = options.getMap("progress");
             if (progress != null) {
-                intent.putExtra("progressMax", progress.getInt("max"));
-                intent.putExtra("progressCurr", progress.getInt("curr"));
+                intent.putExtra("progressMax", (long) progress.getDouble("max"));
+                intent.putExtra("progressCurr", (long) progress.getDouble("curr"));
                 if (progress.hasKey("indeterminate")) {
                     intent.putExtra("progressIndeterminate", progress.getBoolean("indeterminate"));
                 }
@@ -499,15 +1078,21 @@ public class RNForegroundServiceModule extends ReactContextBaseJavaModule {
         if (options.hasKey("autoStop")) {
             intent.putExtra("autoStop", options.getBoolean("autoStop"));
         }
+        if (options.hasKey("progressStep")) {
+            intent.putExtra("progressStep", options.getDouble("progressStep"));
+        }
+        if (options.hasKey("progressTemplate")) {
+            intent.putExtra("progressTemplate", options.getString("progressTemplate"));
+        }
+        if (options.hasKey("progressRateUnit")) {
+            intent.putExtra("progressRateUnit", options.getString("progressRateUnit"));
+        }
+        if (options.hasKey("maxUpdateRate")) {
+            intent.putExtra("maxUpdateRate", options.getDouble("maxUpdateRate"));
+        }
     }
 
     private boolean isServiceRunning() {
-        ActivityManager manager = (ActivityManager) reactContext.getSystemService(Context.ACTIVITY_SERVICE);
-        for (ActivityManager.RunningServiceInfo service : manager.getRunningServices(Integer.MAX_VALUE)) {
-            if (ForegroundService.class.getName().equals(service.service.getClassName())) {
-                return true;
-            }
-        }
-        return false;
+        return ServiceStateRegistry.isRunning();
     }
 }
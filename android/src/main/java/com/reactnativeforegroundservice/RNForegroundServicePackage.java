@@ -1,22 +1,40 @@
 package com.reactnativeforegroundservice;
 
-import com.facebook.react.ReactPackage;
+import androidx.annotation.Nullable;
+
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.uimanager.ViewManager;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
-public class RNForegroundServicePackage implements ReactPackage {
+public class RNForegroundServicePackage extends TurboReactPackage {
+    @Nullable
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        return Arrays.<NativeModule>asList(new RNForegroundServiceModule(reactContext));
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (RNForegroundServiceModule.NAME.equals(name)) {
+            return new RNForegroundServiceModule(reactContext);
+        }
+        return null;
     }
 
     @Override
-    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-        return Collections.emptyList();
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> {
+            Map<String, ReactModuleInfo> moduleInfos = new HashMap<>();
+            moduleInfos.put(RNForegroundServiceModule.NAME, new ReactModuleInfo(
+                RNForegroundServiceModule.NAME,
+                RNForegroundServiceModule.NAME,
+                false, // canOverrideExistingModule
+                false, // needsEagerInit
+                false, // hasConstants
+                false, // isCxxModule
+                BuildConfig.IS_NEW_ARCHITECTURE_ENABLED // isTurboModule
+            ));
+            return moduleInfos;
+        };
     }
 }
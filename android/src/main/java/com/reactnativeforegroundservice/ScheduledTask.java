@@ -0,0 +1,216 @@
+package com.reactnativeforegroundservice;
+
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Native mirror of a JS TaskManager task. All scheduling times are
+ * {@link SystemClock#uptimeMillis()} based so they can be handed straight to a Handler.
+ */
+final class ScheduledTask {
+    static final String STATUS_PENDING = "pending";
+    static final String STATUS_RUNNING = "running";
+    static final String STATUS_PAUSED = "paused";
+    static final String STATUS_COMPLETED = "completed";
+    static final String STATUS_FAILED = "failed";
+
+    static final String BACKOFF_FIXED = "fixed";
+    static final String BACKOFF_EXPONENTIAL = "exponential";
+    // Retry delay floor when neither retryPolicy.initialDelay nor delay give one
+    private static final long MIN_RETRY_DELAY = 1000;
+    private static final long DEFAULT_MAX_RETRY_DELAY = 5 * 60 * 1000;
+    private static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    private static final long DEFAULT_RESET_TIMEOUT = 60 * 1000;
+
+    final String taskId;
+    long delay;
+    boolean onLoop;
+    String priority = "normal";
+    int retryCount;
+    long timeout = 30000;
+    // Deadline for a whole run, retries included; 0 for none
+    long totalTimeout;
+    // retryPolicy; initial and max elapsed of 0 mean derived from delay and unlimited
+    String retryBackoff = BACKOFF_EXPONENTIAL;
+    long retryInitialDelay;
+    long retryMaxDelay = DEFAULT_MAX_RETRY_DELAY;
+    long retryMaxElapsed;
+    // circuitBreaker; null when the task has none
+    String breakerName;
+    int breakerFailureThreshold = DEFAULT_FAILURE_THRESHOLD;
+    long breakerResetTimeout = DEFAULT_RESET_TIMEOUT;
+
+    String status = STATUS_PENDING;
+    long nextFireAt;
+    long lastExecutionTime;
+    int executionCount;
+    int retryAttempts;
+    // Wall-clock time of the first failure of the current run, 0 when it has not failed
+    long firstFailureAt;
+    // The running attempt is its circuit breaker's half-open trial
+    boolean breakerTrial;
+    // Wake lock held by the running attempt, 0 when none
+    long wakeLockToken;
+    // Recovered from the journal, or handed back by releaseTask, and not re-added by JS yet
+    boolean restored;
+    // Uptime at which it was restored or released; it is dropped if JS does not claim it
+    long restoredAt;
+
+    ScheduledTask(String taskId) {
+        this.taskId = taskId;
+    }
+
+    void applyConfig(ReadableMap config) {
+        if (config.hasKey("delay")) {
+            delay = (long) config.getDouble("delay");
+        }
+        if (config.hasKey("onLoop")) {
+            onLoop = config.getBoolean("onLoop");
+        }
+        if (config.hasKey("priority")) {
+            priority = config.getString("priority");
+        }
+        if (config.hasKey("retryCount")) {
+            retryCount = config.getInt("retryCount");
+        }
+        if (config.hasKey("timeout")) {
+            timeout = (long) config.getDouble("timeout");
+        }
+        if (config.hasKey("totalTimeout")) {
+            totalTimeout = (long) config.getDouble("totalTimeout");
+        }
+        if (config.hasKey("retryPolicy")) {
+            ReadableMap policy = config.getMap("retryPolicy");
+            if (policy.hasKey("backoff")) {
+                retryBackoff = BACKOFF_FIXED.equals(policy.getString("backoff"))
+                    ? BACKOFF_FIXED
+                    : BACKOFF_EXPONENTIAL;
+            }
+            if (policy.hasKey("initialDelay")) {
+                retryInitialDelay = (long) policy.getDouble("initialDelay");
+            }
+            if (policy.hasKey("maxDelay")) {
+                retryMaxDelay = (long) policy.getDouble("maxDelay");
+            }
+            if (policy.hasKey("maxElapsed")) {
+                retryMaxElapsed = (long) policy.getDouble("maxElapsed");
+            }
+        }
+        if (config.hasKey("circuitBreaker")) {
+            ReadableMap breaker = config.getMap("circuitBreaker");
+            breakerName = breaker.hasKey("name") ? breaker.getString("name") : taskId;
+            if (breaker.hasKey("failureThreshold")) {
+                breakerFailureThreshold = Math.max(1, breaker.getInt("failureThreshold"));
+            }
+            if (breaker.hasKey("resetTimeout")) {
+                breakerResetTimeout = (long) breaker.getDouble("resetTimeout");
+            }
+        }
+    }
+
+    /**
+     * Delay before retry number retryAttempts. Exponential backoff uses full jitter: a
+     * uniform pick between 0 and min(maxDelay, initial * 2^(attempt - 1)), so retries from
+     * many devices spread out instead of arriving together.
+     */
+    long nextRetryDelay(Random random) {
+        long initial = retryInitialDelay > 0 ? retryInitialDelay : Math.max(delay, MIN_RETRY_DELAY);
+        if (BACKOFF_FIXED.equals(retryBackoff)) {
+            return initial;
+        }
+        int shift = Math.min(Math.max(retryAttempts - 1, 0), 30);
+        long ceiling = initial > (retryMaxDelay >> shift) ? retryMaxDelay : initial << shift;
+        if (ceiling <= 0) {
+            return 0;
+        }
+        return (long) (random.nextDouble() * ceiling);
+    }
+
+    int getPriorityRank() {
+        if ("high".equals(priority)) {
+            return 1;
+        }
+        if ("low".equals(priority)) {
+            return 3;
+        }
+        return 2;
+    }
+
+    // Wall-clock equivalent of nextFireAt, as reported to JS
+    long getNextExecutionTime() {
+        return System.currentTimeMillis() + (nextFireAt - SystemClock.uptimeMillis());
+    }
+
+    // Journal encoding; starts with taskId, and stores nextFireAt as wall-clock time
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeUTF(taskId);
+        out.writeLong(delay);
+        out.writeBoolean(onLoop);
+        out.writeUTF(priority);
+        out.writeInt(retryCount);
+        out.writeLong(timeout);
+        out.writeLong(totalTimeout);
+        out.writeUTF(retryBackoff);
+        out.writeLong(retryInitialDelay);
+        out.writeLong(retryMaxDelay);
+        out.writeLong(retryMaxElapsed);
+        out.writeUTF(breakerName != null ? breakerName : "");
+        out.writeInt(breakerFailureThreshold);
+        out.writeLong(breakerResetTimeout);
+        out.writeUTF(status);
+        out.writeLong(getNextExecutionTime());
+        out.writeLong(lastExecutionTime);
+        out.writeInt(executionCount);
+        out.writeInt(retryAttempts);
+        out.writeLong(firstFailureAt);
+    }
+
+    static ScheduledTask readFrom(DataInputStream in) throws IOException {
+        ScheduledTask task = new ScheduledTask(in.readUTF());
+        task.delay = in.readLong();
+        task.onLoop = in.readBoolean();
+        task.priority = in.readUTF();
+        task.retryCount = in.readInt();
+        task.timeout = in.readLong();
+        task.totalTimeout = in.readLong();
+        task.retryBackoff = in.readUTF();
+        task.retryInitialDelay = in.readLong();
+        task.retryMaxDelay = in.readLong();
+        task.retryMaxElapsed = in.readLong();
+        String breakerName = in.readUTF();
+        task.breakerName = breakerName.isEmpty() ? null : breakerName;
+        task.breakerFailureThreshold = in.readInt();
+        task.breakerResetTimeout = in.readLong();
+        task.status = in.readUTF();
+        long nextExecutionTime = in.readLong();
+        task.nextFireAt = SystemClock.uptimeMillis() + (nextExecutionTime - System.currentTimeMillis());
+        task.lastExecutionTime = in.readLong();
+        task.executionCount = in.readInt();
+        task.retryAttempts = in.readInt();
+        task.firstFailureAt = in.readLong();
+        return task;
+    }
+
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putString("taskId", taskId);
+        map.putBoolean("isRunning", STATUS_RUNNING.equals(status));
+        map.putInt("executionCount", executionCount);
+        if (lastExecutionTime > 0) {
+            map.putDouble("lastExecutionTime", lastExecutionTime);
+        }
+        if (STATUS_PENDING.equals(status)) {
+            map.putDouble("nextExecutionTime", getNextExecutionTime());
+        }
+        map.putString("status", status);
+        return map;
+    }
+}
@@ -0,0 +1,218 @@
+package com.reactnativeforegroundservice;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.util.AtomicFile;
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Versioned snapshot of the active service configuration: for every logical service, its
+ * notification id and the options it was started and last updated with. ForegroundService
+ * loads it on a sticky restart, before startForeground, so the restored notification looks
+ * exactly like the last one without JS.
+ *
+ * <p>Snapshots are encoded on the caller's thread and written with AtomicFile on the
+ * {@link BackgroundWorker}; back-to-back saves collapse into a single write of the
+ * latest one.
+ */
+final class ServiceConfigSnapshot {
+    private static final String TAG = "RNForegroundService";
+    private static final String FILE_NAME = "rnforegroundservice.config";
+
+    private static final int MAGIC = 0x524E4653; // "RNFS"
+    private static final int VERSION = 1;
+
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_LONG = 3;
+    private static final byte TYPE_DOUBLE = 4;
+    private static final byte TYPE_BOOLEAN = 5;
+
+    /**
+     * One saved logical service; options holds its intent extras, taskName included.
+     */
+    static final class Entry {
+        final int notificationId;
+        final Bundle options;
+
+        Entry(int notificationId, Bundle options) {
+            this.notificationId = notificationId;
+            this.options = options;
+        }
+    }
+
+    private static ServiceConfigSnapshot instance;
+
+    static synchronized ServiceConfigSnapshot get(Context context) {
+        if (instance == null) {
+            instance = new ServiceConfigSnapshot(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final AtomicFile file;
+    private final Runnable writeLatest = this::writeLatest;
+    // Latest encoded snapshot not yet written, null for a pending delete
+    private byte[] pending;
+    private boolean writeScheduled = false;
+
+    private ServiceConfigSnapshot(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    /**
+     * Reads the saved snapshot synchronously; empty when there is none or it is unreadable.
+     */
+    List<Entry> load() {
+        List<Entry> entries = new ArrayList<>();
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(file.readFully()));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return entries;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                int notificationId = in.readInt();
+                entries.add(new Entry(notificationId, readBundle(in)));
+            }
+        } catch (FileNotFoundException e) {
+            // Nothing saved yet
+        } catch (IOException e) {
+            Log.w(TAG, "Ignoring unreadable service snapshot", e);
+            entries.clear();
+        }
+        return entries;
+    }
+
+    void save(Collection<ServiceSession> sessions) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(sessions.size());
+            for (ServiceSession session : sessions) {
+                out.writeInt(session.notificationId);
+                writeBundle(out, session.options);
+            }
+            schedule(bytes.toByteArray());
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to encode service snapshot", e);
+        }
+    }
+
+    void clear() {
+        schedule(null);
+    }
+
+    private void schedule(byte[] snapshot) {
+        synchronized (this) {
+            pending = snapshot;
+            if (writeScheduled) {
+                return;
+            }
+            writeScheduled = true;
+        }
+        if (!BackgroundWorker.get().execute(writeLatest)) {
+            // Queue full, a late snapshot is worse than a write on this thread
+            writeLatest();
+        }
+    }
+
+    private void writeLatest() {
+        byte[] snapshot;
+        synchronized (this) {
+            snapshot = pending;
+            pending = null;
+            writeScheduled = false;
+        }
+        if (snapshot == null) {
+            file.delete();
+            return;
+        }
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(snapshot);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) {
+                file.failWrite(out);
+            }
+            Log.w(TAG, "Failed to write service snapshot", e);
+        }
+    }
+
+    private static void writeBundle(DataOutputStream out, Bundle options) throws IOException {
+        List<String> keys = new ArrayList<>();
+        for (String key : options.keySet()) {
+            Object value = options.get(key);
+            if (value instanceof String || value instanceof Integer || value instanceof Long
+                || value instanceof Double || value instanceof Boolean) {
+                keys.add(key);
+            }
+        }
+        out.writeInt(keys.size());
+        for (String key : keys) {
+            Object value = options.get(key);
+            out.writeUTF(key);
+            if (value instanceof String) {
+                out.writeByte(TYPE_STRING);
+                out.writeUTF((String) value);
+            } else if (value instanceof Integer) {
+                out.writeByte(TYPE_INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                out.writeByte(TYPE_LONG);
+                out.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                out.writeByte(TYPE_DOUBLE);
+                out.writeDouble((Double) value);
+            } else {
+                out.writeByte(TYPE_BOOLEAN);
+                out.writeBoolean((Boolean) value);
+            }
+        }
+    }
+
+    private static Bundle readBundle(DataInputStream in) throws IOException {
+        Bundle options = new Bundle();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            byte type = in.readByte();
+            switch (type) {
+                case TYPE_STRING:
+                    options.putString(key, in.readUTF());
+                    break;
+                case TYPE_INT:
+                    options.putInt(key, in.readInt());
+                    break;
+                case TYPE_LONG:
+                    options.putLong(key, in.readLong());
+                    break;
+                case TYPE_DOUBLE:
+                    options.putDouble(key, in.readDouble());
+                    break;
+                case TYPE_BOOLEAN:
+                    options.putBoolean(key, in.readBoolean());
+                    break;
+                default:
+                    throw new IOException("Unknown value type " + type);
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,87 @@
+package com.reactnativeforegroundservice;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.IBinder;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a single local binding to {@link ForegroundService}. The binding is made without
+ * BIND_AUTO_CREATE, so it never starts the service by itself and connects as soon as the
+ * service is started by an intent. Commands for a running service sent before the binding
+ * has connected, e.g. right after a start or a sticky restart, are held and handed over on
+ * connect.
+ */
+final class ServiceConnector implements ServiceConnection {
+    private final Context context;
+    @Nullable
+    private volatile ForegroundService service;
+    private boolean bound = false;
+    // Non-start commands waiting for the binding to connect; guarded by this
+    private final List<Intent> pending = new ArrayList<>();
+
+    ServiceConnector(Context context) {
+        this.context = context;
+    }
+
+    synchronized void bind() {
+        if (!bound) {
+            bound = context.bindService(new Intent(context, ForegroundService.class), this, 0);
+        }
+    }
+
+    synchronized void unbind() {
+        if (bound) {
+            context.unbindService(this);
+            bound = false;
+        }
+        service = null;
+        pending.clear();
+    }
+
+    /**
+     * Hands the command straight to the running service. Returns false when the service
+     * is not connected or already stopping, in which case the caller has to fall back to
+     * an intent.
+     */
+    boolean dispatch(Intent command) {
+        ForegroundService current = service;
+        if (current != null) {
+            return ServiceStateRegistry.isRunning() && current.enqueueCommand(command);
+        }
+        synchronized (this) {
+            if (service != null) {
+                // Connected in the meantime
+                return ServiceStateRegistry.isRunning() && service.enqueueCommand(command);
+            }
+            // Start commands go by intent, which is ordered with the start that is under way
+            if (bound && ServiceStateRegistry.isRunning() && !ForegroundService.isStartCommand(command)) {
+                pending.add(command);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void onServiceConnected(ComponentName name, IBinder binder) {
+        ForegroundService connected = ((ForegroundService.LocalBinder) binder).getService();
+        service = connected;
+        for (Intent command : pending) {
+            // Dropped if the service is stopping already, as it would have been when connected
+            connected.enqueueCommand(command);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public synchronized void onServiceDisconnected(ComponentName name) {
+        service = null;
+    }
+}
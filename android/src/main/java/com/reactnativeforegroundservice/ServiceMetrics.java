@@ -0,0 +1,129 @@
+package com.reactnativeforegroundservice;
+
+import android.os.Debug;
+import android.os.Process;
+import android.os.SystemClock;
+import android.system.Os;
+import android.system.OsConstants;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide service metrics. Task counters are plain atomics bumped on the execution
+ * path; memory and CPU are sampled on read, with the PSS sample cached because
+ * Debug.getMemoryInfo walks the whole address space.
+ */
+final class ServiceMetrics {
+    // Debug.getMemoryInfo costs milliseconds, don't take it more often than this
+    private static final long PSS_SAMPLE_INTERVAL_MS = 5000;
+
+    static final AtomicLong tasksExecuted = new AtomicLong();
+    static final AtomicLong tasksSucceeded = new AtomicLong();
+    static final AtomicLong tasksFailed = new AtomicLong();
+    static final AtomicLong tasksRetried = new AtomicLong();
+    // Due-to-dispatch wait of scheduled tasks per priority
+    private static final LatencyHistogram queueWaitHigh = new LatencyHistogram();
+    private static final LatencyHistogram queueWaitNormal = new LatencyHistogram();
+    private static final LatencyHistogram queueWaitLow = new LatencyHistogram();
+
+    private static long lastPssSampleAt = 0;
+    private static long lastPssBytes = 0;
+    private static long clockTicksPerSecond = 0;
+
+    private ServiceMetrics() {
+    }
+
+    static WritableMap snapshot() {
+        ServiceStateRegistry.State state = ServiceStateRegistry.get();
+        long uptime = state.getUptime();
+        long cpuTimeMs = readProcessCpuTimeMs();
+
+        WritableMap metrics = Arguments.createMap();
+        metrics.putDouble("uptime", uptime);
+        metrics.putDouble("tasksExecuted", tasksExecuted.get());
+        metrics.putDouble("tasksSucceeded", tasksSucceeded.get());
+        metrics.putDouble("tasksFailed", tasksFailed.get());
+        metrics.putDouble("tasksRetried", tasksRetried.get());
+        metrics.putDouble("memoryUsage", samplePssBytes());
+        metrics.putDouble("cpuTime", cpuTimeMs);
+        metrics.putString("batteryImpact",
+            estimateBatteryImpact(cpuTimeMs - state.createdCpuTimeMs, uptime));
+        metrics.putDouble("eventsDropped", NativeEventBus.get().getDroppedCount());
+        metrics.putDouble("wakeLockHeldTime", WakeLockManager.totalHeldMs());
+        metrics.putMap("wakeLocks", WakeLockManager.snapshotStats());
+        // Reading metrics must not start the worker or watchdog threads
+        BackgroundWorker worker = BackgroundWorker.peek();
+        metrics.putMap("backgroundWorker", worker != null ? worker.getStats() : BackgroundWorker.getIdleStats());
+        Watchdog watchdog = Watchdog.peek();
+        metrics.putInt("watchdogDeadlines", watchdog != null ? watchdog.getArmedCount() : 0);
+        WritableMap waits = Arguments.createMap();
+        waits.putMap("high", queueWaitHigh.toWritableMap());
+        waits.putMap("normal", queueWaitNormal.toWritableMap());
+        waits.putMap("low", queueWaitLow.toWritableMap());
+        metrics.putMap("queueWait", waits);
+        return metrics;
+    }
+
+    static LatencyHistogram queueWait(String priority) {
+        if ("high".equals(priority)) {
+            return queueWaitHigh;
+        }
+        if ("low".equals(priority)) {
+            return queueWaitLow;
+        }
+        return queueWaitNormal;
+    }
+
+    private static synchronized long samplePssBytes() {
+        long now = SystemClock.elapsedRealtime();
+        if (lastPssSampleAt == 0 || now - lastPssSampleAt >= PSS_SAMPLE_INTERVAL_MS) {
+            Debug.MemoryInfo memoryInfo = new Debug.MemoryInfo();
+            Debug.getMemoryInfo(memoryInfo);
+            lastPssBytes = memoryInfo.getTotalPss() * 1024L;
+            lastPssSampleAt = now;
+        }
+        return lastPssBytes;
+    }
+
+    // utime + stime from /proc/self/stat, falling back to the framework's own counter
+    static long readProcessCpuTimeMs() {
+        try (BufferedReader reader = new BufferedReader(new FileReader("/proc/self/stat"))) {
+            String line = reader.readLine();
+            // The command name may contain spaces, fields are counted after its closing paren
+            String[] fields = line.substring(line.lastIndexOf(')') + 2).split(" ");
+            long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            return ticks * 1000 / getClockTicksPerSecond();
+        } catch (IOException | RuntimeException e) {
+            return Process.getElapsedCpuTime();
+        }
+    }
+
+    private static synchronized long getClockTicksPerSecond() {
+        if (clockTicksPerSecond <= 0) {
+            clockTicksPerSecond = Os.sysconf(OsConstants._SC_CLK_TCK);
+            if (clockTicksPerSecond <= 0) {
+                clockTicksPerSecond = 100;
+            }
+        }
+        return clockTicksPerSecond;
+    }
+
+    // CPU time spent since the service was created over its uptime, so the process startup
+    // and time before the service don't count against it
+    private static String estimateBatteryImpact(long cpuTimeMs, long uptime) {
+        if (uptime <= 0) {
+            return "low";
+        }
+        double cpuShare = (double) cpuTimeMs / uptime;
+        if (cpuShare < 0.02) {
+            return "low";
+        }
+        return cpuShare < 0.10 ? "medium" : "high";
+    }
+}
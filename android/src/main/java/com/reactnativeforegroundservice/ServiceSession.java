@@ -0,0 +1,218 @@
+package com.reactnativeforegroundservice;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+
+/**
+ * One logical service hosted by {@link ForegroundService}, keyed by taskName. Each session
+ * has its own notification and notification state.
+ */
+final class ServiceSession {
+    final String taskName;
+    final int notificationId;
+
+    String taskTitle = "Background Task";
+    String taskDesc = "Running in background";
+    String taskIcon = "ic_notification";
+    String importance = "DEFAULT";
+    int number = 0;
+    boolean button = false;
+    String buttonText = "Stop";
+    String buttonOnPress = "stop";
+    boolean setOnlyAlertOnce = false;
+    String color = "#000000";
+    // Longs so byte counts past 2 GB don't wrap
+    long progressMax = 100;
+    long progressCurr = 0;
+    boolean progressIndeterminate = false;
+    // Progress changes smaller than this percentage of progressMax are not re-posted
+    double progressStep = 1;
+    // Replaces taskDesc when set; see ProgressTemplate for the placeholders
+    @Nullable
+    String progressTemplate = null;
+    String progressRateUnit = ProgressTemplate.UNIT_COUNT;
+    // Smoothed progressCurr change per second, fed on the main thread
+    final ProgressTemplate.RateEstimator rateEstimator = new ProgressTemplate.RateEstimator();
+    // As of the last setProgress or refreshRate
+    double progressRate = 0;
+    // Stop this logical service after timeoutMs, 0 for no limit
+    long timeoutMs = 0;
+    // Stop this logical service once its headless task run finishes
+    boolean autoStop = false;
+
+    // Every option this session was started and updated with, for ServiceConfigSnapshot
+    final Bundle options = new Bundle();
+
+    // Set when the state changed and the notification still has to be re-posted
+    boolean dirty = false;
+
+    ServiceSession(String taskName, int notificationId) {
+        this.taskName = taskName;
+        this.notificationId = notificationId;
+    }
+
+    void applyStartOptions(Intent intent) {
+        if (intent.hasExtra("taskTitle")) {
+            taskTitle = intent.getStringExtra("taskTitle");
+        }
+        if (intent.hasExtra("taskDesc")) {
+            taskDesc = intent.getStringExtra("taskDesc");
+        }
+        if (intent.hasExtra("taskIcon")) {
+            taskIcon = intent.getStringExtra("taskIcon");
+        }
+        if (intent.hasExtra("importance")) {
+            importance = intent.getStringExtra("importance");
+        }
+        if (intent.hasExtra("number")) {
+            number = intent.getIntExtra("number", 0);
+        }
+        if (intent.hasExtra("button")) {
+            button = intent.getBooleanExtra("button", false);
+        }
+        if (intent.hasExtra("buttonText")) {
+            buttonText = intent.getStringExtra("buttonText");
+        }
+        if (intent.hasExtra("buttonOnPress")) {
+            buttonOnPress = intent.getStringExtra("buttonOnPress");
+        }
+        if (intent.hasExtra("setOnlyAlertOnce")) {
+            setOnlyAlertOnce = intent.getBooleanExtra("setOnlyAlertOnce", false);
+        }
+        if (intent.hasExtra("color")) {
+            color = intent.getStringExtra("color");
+        }
+        if (intent.hasExtra("timeoutMs")) {
+            timeoutMs = intent.getIntExtra("timeoutMs", 0);
+        }
+        if (intent.hasExtra("autoStop")) {
+            autoStop = intent.getBooleanExtra("autoStop", false);
+        }
+        applyUpdate(intent);
+    }
+
+    void applyUpdate(Intent intent) {
+        if (intent.hasExtra("taskTitle")) {
+            taskTitle = intent.getStringExtra("taskTitle");
+        }
+        if (intent.hasExtra("taskDesc")) {
+            taskDesc = intent.getStringExtra("taskDesc");
+        }
+        if (intent.hasExtra("progressMax")) {
+            progressMax = getLongExtra(intent, "progressMax", 100);
+        }
+        if (intent.hasExtra("progressCurr")) {
+            setProgress(getLongExtra(intent, "progressCurr", 0), progressMax);
+        }
+        if (intent.hasExtra("progressIndeterminate")) {
+            progressIndeterminate = intent.getBooleanExtra("progressIndeterminate", false);
+        }
+        if (intent.hasExtra("progressStep")) {
+            progressStep = intent.getDoubleExtra("progressStep", 1);
+        }
+        if (intent.hasExtra("progressTemplate")) {
+            String template = intent.getStringExtra("progressTemplate");
+            // An empty template switches back to taskDesc
+            progressTemplate = template == null || template.isEmpty() ? null : template;
+        }
+        if (intent.hasExtra("progressRateUnit")) {
+            progressRateUnit = intent.getStringExtra("progressRateUnit");
+        }
+    }
+
+    /**
+     * Copy of the notification state for the render thread, which must not read a session
+     * the main thread keeps changing.
+     */
+    ServiceSession copyForRender() {
+        ServiceSession copy = new ServiceSession(taskName, notificationId);
+        copy.taskTitle = taskTitle;
+        copy.taskDesc = taskDesc;
+        copy.taskIcon = taskIcon;
+        copy.importance = importance;
+        copy.number = number;
+        copy.button = button;
+        copy.buttonText = buttonText;
+        copy.buttonOnPress = buttonOnPress;
+        copy.setOnlyAlertOnce = setOnlyAlertOnce;
+        copy.color = color;
+        copy.progressMax = progressMax;
+        copy.progressCurr = progressCurr;
+        copy.progressIndeterminate = progressIndeterminate;
+        copy.progressStep = progressStep;
+        copy.progressTemplate = progressTemplate;
+        copy.progressRateUnit = progressRateUnit;
+        copy.progressRate = progressRate;
+        return copy;
+    }
+
+    // The text to show: taskDesc, or the progress template filled in
+    String getContentText() {
+        if (progressTemplate == null) {
+            return taskDesc;
+        }
+        return ProgressTemplate.format(progressTemplate, progressCurr, progressMax, progressRate, progressRateUnit);
+    }
+
+    /**
+     * Hash of everything visible in the notification, with progress quantized to
+     * progressStep. Equal fingerprints mean re-posting would not change what is shown.
+     */
+    long contentFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, taskTitle);
+        hash = mix(hash, getContentText());
+        hash = mix(hash, taskIcon);
+        hash = mix(hash, color);
+        hash = mix(hash, number);
+        hash = mix(hash, setOnlyAlertOnce ? 1 : 0);
+        hash = mix(hash, button ? buttonText : null);
+        if (progressIndeterminate) {
+            hash = mix(hash, -1);
+        } else if (progressMax > 0) {
+            long bucket = progressStep > 0
+                ? (long) Math.floor(progressCurr * 100.0 / progressMax / progressStep)
+                : progressCurr;
+            hash = mix(hash, bucket);
+        }
+        // 0 is reserved for "nothing posted"
+        return hash != 0 ? hash : 1;
+    }
+
+    private static long mix(long hash, long value) {
+        return (hash ^ value) * 0x100000001b3L;
+    }
+
+    private static long mix(long hash, String value) {
+        return mix(hash, value != null ? value.hashCode() : 0x9e3779b9L);
+    }
+
+    void setProgress(long curr, long max) {
+        progressMax = max;
+        progressCurr = curr;
+        long now = SystemClock.uptimeMillis();
+        rateEstimator.sample(curr, now);
+        progressRate = rateEstimator.getRate(now);
+    }
+
+    // Re-reads the rate while no progress arrives, so a stall shows in {rate} and {eta}
+    void refreshRate() {
+        progressRate = rateEstimator.getRate(SystemClock.uptimeMillis());
+    }
+
+    // Snapshots written before progress became a long hold ints
+    private static long getLongExtra(Intent intent, String key, long defaultValue) {
+        Bundle extras = intent.getExtras();
+        Object value = extras != null ? extras.get(key) : null;
+        return value instanceof Number ? ((Number) value).longValue() : defaultValue;
+    }
+
+    void recordOptions(Intent intent) {
+        Bundle extras = intent.getExtras();
+        if (extras != null) {
+            options.putAll(extras);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.reactnativeforegroundservice;
+
+import android.os.SystemClock;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Process-wide record of the ForegroundService lifecycle. The service publishes every
+ * transition here, so status queries are a single volatile read instead of an
+ * ActivityManager.getRunningServices scan.
+ */
+final class ServiceStateRegistry {
+    static final String STATE_IDLE = "idle";
+    static final String STATE_CREATED = "created";
+    static final String STATE_FOREGROUND = "foreground";
+    static final String STATE_STOPPING = "stopping";
+    static final String STATE_DESTROYED = "destroyed";
+
+    /**
+     * Immutable snapshot; wall-clock timestamps are 0 until the phase has been reached.
+     */
+    static final class State {
+        final String phase;
+        final long createdAt;
+        final long createdAtElapsed;
+        // Process CPU time when the service was created, so its own share can be told apart
+        final long createdCpuTimeMs;
+        final long foregroundAt;
+        final long stoppingAt;
+        final long destroyedAt;
+
+        State(String phase, long createdAt, long createdAtElapsed, long createdCpuTimeMs,
+              long foregroundAt, long stoppingAt, long destroyedAt) {
+            this.phase = phase;
+            this.createdAt = createdAt;
+            this.createdAtElapsed = createdAtElapsed;
+            this.createdCpuTimeMs = createdCpuTimeMs;
+            this.foregroundAt = foregroundAt;
+            this.stoppingAt = stoppingAt;
+            this.destroyedAt = destroyedAt;
+        }
+
+        boolean isRunning() {
+            return STATE_CREATED.equals(phase) || STATE_FOREGROUND.equals(phase);
+        }
+
+        long getUptime() {
+            return isRunning() ? SystemClock.elapsedRealtime() - createdAtElapsed : 0;
+        }
+    }
+
+    private static final AtomicReference<State> state =
+        new AtomicReference<>(new State(STATE_IDLE, 0, 0, 0, 0, 0, 0));
+
+    // Logical services hosted by the running ForegroundService: taskName to notification ID,
+    // in start order. Replaced, never mutated.
+    private static volatile Map<String, Integer> sessionNotificationIds = Collections.emptyMap();
+    private static volatile int foregroundNotificationId = 0;
+
+    private ServiceStateRegistry() {
+    }
+
+    static void publishSessions(Map<String, Integer> notificationIds, int notificationId) {
+        sessionNotificationIds = Collections.unmodifiableMap(new LinkedHashMap<>(notificationIds));
+        foregroundNotificationId = notificationId;
+    }
+
+    static int getServiceCount() {
+        return isRunning() ? sessionNotificationIds.size() : 0;
+    }
+
+    static Map<String, Integer> getSessionNotificationIds() {
+        return sessionNotificationIds;
+    }
+
+    static int getForegroundNotificationId() {
+        return foregroundNotificationId;
+    }
+
+    static State get() {
+        return state.get();
+    }
+
+    static boolean isRunning() {
+        return state.get().isRunning();
+    }
+
+    static void markCreated() {
+        state.set(new State(STATE_CREATED, System.currentTimeMillis(), SystemClock.elapsedRealtime(),
+            ServiceMetrics.readProcessCpuTimeMs(), 0, 0, 0));
+    }
+
+    static void markForeground() {
+        State current;
+        do {
+            current = state.get();
+            if (STATE_FOREGROUND.equals(current.phase) || !current.isRunning()) {
+                return;
+            }
+        } while (!state.compareAndSet(current, new State(STATE_FOREGROUND, current.createdAt,
+            current.createdAtElapsed, current.createdCpuTimeMs, System.currentTimeMillis(), 0, 0)));
+    }
+
+    static void markStopping() {
+        State current;
+        do {
+            current = state.get();
+            if (!current.isRunning()) {
+                return;
+            }
+        } while (!state.compareAndSet(current, new State(STATE_STOPPING, current.createdAt,
+            current.createdAtElapsed, current.createdCpuTimeMs, current.foregroundAt, System.currentTimeMillis(), 0)));
+    }
+
+    static void markDestroyed() {
+        publishSessions(Collections.emptyMap(), 0);
+        State current;
+        do {
+            current = state.get();
+        } while (!state.compareAndSet(current, new State(STATE_DESTROYED, current.createdAt,
+            current.createdAtElapsed, current.createdCpuTimeMs, current.foregroundAt, current.stoppingAt, System.currentTimeMillis())));
+    }
+}
@@ -0,0 +1,291 @@
+package com.reactnativeforegroundservice;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of scheduler tasks, kept in a memory-mapped file. Writes are plain
+ * memory stores that survive process death through the page cache, so a sticky restart can
+ * rebuild the schedule without waiting for JS. Notification state lives in
+ * {@link ServiceConfigSnapshot}.
+ *
+ * <p>Layout: an 8 byte header (magic, version), then records of
+ * [type:1][length:4][payload][crc32:4]. A zero type marks the end; a bad CRC marks a torn
+ * write, and everything after it is ignored. Only the latest record per task is live, and
+ * the file is rewritten with just those on open and whenever it fills up.
+ */
+final class TaskJournal {
+    private static final String TAG = "RNForegroundService";
+    private static final String FILE_NAME = "rnforegroundservice.journal";
+
+    private static final int MAGIC = 0x524E464A; // "RNFJ"
+    // Bumped when the task encoding changes; older journals are discarded
+    private static final int VERSION = 3;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_OVERHEAD = 1 + 4 + 4;
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+    private static final int MAX_CAPACITY = 4 * 1024 * 1024;
+
+    private static final byte TYPE_TASK_PUT = 1;
+    private static final byte TYPE_TASK_REMOVE = 2;
+    private static final byte TYPE_TASK_CLEAR = 3;
+
+    private static final String TASK_KEY = "t:";
+
+    private static TaskJournal instance;
+
+    static synchronized TaskJournal get(Context context) {
+        if (instance == null) {
+            instance = open(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    // Replays the journal in file, or starts an empty one
+    static TaskJournal open(File file) {
+        TaskJournal journal = new TaskJournal(file);
+        journal.load();
+        return journal;
+    }
+
+    private final File file;
+    // Latest encoded put record per task, in first-write order
+    private final Map<String, byte[]> live = new LinkedHashMap<>();
+    @Nullable
+    private RandomAccessFile raf;
+    @Nullable
+    private MappedByteBuffer buffer;
+    private int capacity = INITIAL_CAPACITY;
+    private final CRC32 crc = new CRC32();
+
+    private TaskJournal(File file) {
+        this.file = file;
+    }
+
+    synchronized void putTask(ScheduledTask task) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            task.writeTo(new DataOutputStream(bytes));
+            append(encode(TYPE_TASK_PUT, bytes.toByteArray()));
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to journal task " + task.taskId, e);
+        }
+    }
+
+    synchronized void removeTask(String taskId) {
+        append(encode(TYPE_TASK_REMOVE, utf(taskId)));
+    }
+
+    synchronized void clearTasks() {
+        append(encode(TYPE_TASK_CLEAR, new byte[0]));
+    }
+
+    synchronized List<ScheduledTask> readTasks() {
+        List<ScheduledTask> tasks = new ArrayList<>();
+        for (Map.Entry<String, byte[]> entry : live.entrySet()) {
+            if (entry.getKey().startsWith(TASK_KEY)) {
+                try {
+                    tasks.add(ScheduledTask.readFrom(payloadStream(entry.getValue())));
+                } catch (IOException e) {
+                    Log.w(TAG, "Skipping unreadable task record", e);
+                }
+            }
+        }
+        return tasks;
+    }
+
+    private void load() {
+        try {
+            if (file.exists()) {
+                capacity = Math.max(INITIAL_CAPACITY, (int) Math.min(file.length(), MAX_CAPACITY));
+                map(file, capacity);
+                replay();
+            }
+            // Start every process from a compacted file
+            compact(0);
+        } catch (IOException e) {
+            Log.w(TAG, "Task journal unavailable", e);
+            close();
+        }
+    }
+
+    private void replay() {
+        ByteBuffer in = buffer;
+        if (in.getInt(0) != MAGIC || in.getInt(4) != VERSION) {
+            return;
+        }
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= capacity) {
+            byte type = in.get(position);
+            int length = in.getInt(position + 1);
+            // Written this way so a garbage length from a torn record can't overflow the sum
+            if (type == 0 || length < 0 || length > capacity - position - RECORD_OVERHEAD) {
+                break;
+            }
+            byte[] record = new byte[RECORD_OVERHEAD + length];
+            in.position(position);
+            in.get(record);
+            if (checksum(record) != ByteBuffer.wrap(record).getInt(record.length - 4)) {
+                // Torn write from a kill mid-append
+                break;
+            }
+            apply(type, record);
+            position += record.length;
+        }
+    }
+
+    private void apply(byte type, byte[] record) {
+        try {
+            switch (type) {
+                case TYPE_TASK_PUT:
+                    live.put(TASK_KEY + payloadStream(record).readUTF(), record);
+                    break;
+                case TYPE_TASK_REMOVE:
+                    live.remove(TASK_KEY + payloadStream(record).readUTF());
+                    break;
+                case TYPE_TASK_CLEAR:
+                    removeLive(TASK_KEY);
+                    break;
+                default:
+                    break;
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Skipping unreadable journal record", e);
+        }
+    }
+
+    private void removeLive(String prefix) {
+        Iterator<String> keys = live.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+    }
+
+    private void append(byte[] record) {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            if (buffer.position() + record.length > capacity) {
+                compact(record.length);
+            }
+            buffer.put(record);
+            // Keep the end marker behind the last record
+            if (buffer.position() < capacity) {
+                buffer.put(buffer.position(), (byte) 0);
+            }
+            apply(record[0], record);
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Task journal write failed", e);
+            close();
+        }
+    }
+
+    /**
+     * Rewrites the live records into a fresh file, growing it so that at least half of it
+     * stays free for appends, then swaps it in with a rename.
+     */
+    private void compact(int reserve) throws IOException {
+        int needed = HEADER_SIZE + reserve;
+        for (byte[] record : live.values()) {
+            needed += record.length;
+        }
+        int newCapacity = INITIAL_CAPACITY;
+        while (newCapacity < needed * 2 && newCapacity < MAX_CAPACITY) {
+            newCapacity *= 2;
+        }
+        if (needed > newCapacity) {
+            throw new IOException("Task journal exceeds " + MAX_CAPACITY + " bytes");
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        close();
+        map(tmp, newCapacity);
+        capacity = newCapacity;
+        buffer.position(0);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        for (byte[] record : live.values()) {
+            buffer.put(record);
+        }
+        if (buffer.position() < capacity) {
+            buffer.put(buffer.position(), (byte) 0);
+        }
+        buffer.force();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to replace " + file);
+        }
+    }
+
+    private void map(File target, int size) throws IOException {
+        raf = new RandomAccessFile(target, "rw");
+        if (raf.length() != size) {
+            raf.setLength(size);
+        }
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.position(HEADER_SIZE);
+    }
+
+    private void close() {
+        buffer = null;
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+            raf = null;
+        }
+    }
+
+    private byte[] encode(byte type, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + payload.length);
+        record.put(type);
+        record.putInt(payload.length);
+        record.put(payload);
+        record.putInt(checksum(record.array()));
+        return record.array();
+    }
+
+    // CRC over everything but the trailing checksum
+    private int checksum(byte[] record) {
+        crc.reset();
+        crc.update(record, 0, record.length - 4);
+        return (int) crc.getValue();
+    }
+
+    private static DataInputStream payloadStream(byte[] record) {
+        return new DataInputStream(new ByteArrayInputStream(record, 5, record.length - RECORD_OVERHEAD));
+    }
+
+    private static byte[] utf(String value) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            new DataOutputStream(bytes).writeUTF(value);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
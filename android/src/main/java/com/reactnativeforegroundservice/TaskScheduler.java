@@ -0,0 +1,573 @@
+package com.reactnativeforegroundservice;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Deadline-driven task scheduler. Pending tasks are kept in a queue ordered by next fire
+ * time and a single Handler message is armed for the earliest deadline, so the scheduler
+ * thread only wakes up when a task is actually due.
+ *
+ * <p>Running tasks are watched by {@link Watchdog}: each attempt has to complete within the
+ * task timeout, and each run, retries included, within totalTimeout. Every dispatch is an
+ * attempt numbered by executionCount; completions for an attempt that already timed out
+ * are ignored.
+ *
+ * <p>Due tasks wait in a ready list and are dispatched while fewer than maxConcurrent
+ * tasks run, best effective priority first. A waiting task gains one priority level per
+ * AGING_INTERVAL_MS, so low priority work can't starve behind a stream of high priority
+ * tasks. Queue waits are recorded per priority in {@link ServiceMetrics#queueWait}. This
+ * ready list is the only place task priority applies; the tasks themselves run in JS.
+ *
+ * <p>Failed attempts are retried natively after the task's retry delay (exponential with
+ * full jitter by default). Tasks that share a {@link CircuitBreaker} stop retrying while it
+ * is open.
+ *
+ * <p>Tasks restored from the journal are held, not dispatched, until JS adds them again;
+ * those JS does not claim within RESTORED_TTL_MS are dropped.
+ */
+final class TaskScheduler {
+    interface Listener {
+        void onTaskDue(ScheduledTask task);
+
+        // Called with the scheduler locked, after the timeout has been applied to the task
+        void onTaskTimeout(ScheduledTask task, String deadline);
+    }
+
+    static final String DEADLINE_ATTEMPT = "attempt";
+    static final String DEADLINE_TOTAL = "total";
+    private static final String ATTEMPT_KEY = "attempt:";
+    private static final String RUN_KEY = "run:";
+
+    private static final Comparator<ScheduledTask> FIRE_ORDER = (a, b) -> {
+        int byTime = Long.compare(a.nextFireAt, b.nextFireAt);
+        return byTime != 0 ? byTime : Integer.compare(a.getPriorityRank(), b.getPriorityRank());
+    };
+
+    static final int DEFAULT_MAX_CONCURRENT = 4;
+    // Waiting this long in the ready list is worth one priority level
+    private static final long AGING_INTERVAL_MS = 10000;
+    // How long restored or released tasks wait for JS to add them again
+    static final long RESTORED_TTL_MS = 10 * 60 * 1000;
+    // Back-off for a dispatch the event bus could not deliver
+    static final long REQUEUE_DELAY_MS = 5000;
+
+    private final Map<String, ScheduledTask> tasks = new HashMap<>();
+    private final PriorityQueue<ScheduledTask> pending = new PriorityQueue<>(16, FIRE_ORDER);
+    private final Handler handler;
+    private final Runnable wakeUp = this::dispatchDueTasks;
+    // Separate from wakeUp, whose posting is managed by armWakeUp
+    private final Runnable drain = this::dispatchDueTasks;
+    private final Runnable pruneRestored = this::pruneRestored;
+    // Due tasks waiting for a free slot; their nextFireAt is when they became due
+    private final List<ScheduledTask> ready = new ArrayList<>();
+    private int runningCount = 0;
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    private long armedFireAt = Long.MAX_VALUE;
+    private final Listener listener;
+    // Every transition is recorded so a restarted process can pick up where it stopped
+    private final TaskJournal journal;
+    // Held per task from dispatch until completeTask, or the task's timeout
+    private final WakeLockManager wakeLocks;
+    private final Watchdog watchdog;
+    // Keyed by circuitBreaker.name, created on first use
+    private final Map<String, CircuitBreaker> breakers = new HashMap<>();
+    private final Random random = new Random();
+
+    TaskScheduler(TaskJournal journal, WakeLockManager wakeLocks, Watchdog watchdog, Listener listener) {
+        this.listener = listener;
+        HandlerThread thread = new HandlerThread("RNForegroundServiceScheduler");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+        this.journal = journal;
+        this.wakeLocks = wakeLocks;
+        this.watchdog = watchdog;
+        for (ScheduledTask task : journal.readTasks()) {
+            restoreTask(task);
+        }
+        armPrune();
+    }
+
+    synchronized void addTask(ScheduledTask task) {
+        ScheduledTask existing = tasks.put(task.taskId, task);
+        if (existing != null) {
+            dequeue(existing);
+            endRun(existing);
+        }
+        task.status = ScheduledTask.STATUS_PENDING;
+        task.nextFireAt = SystemClock.uptimeMillis() + task.delay;
+        if (existing != null && existing.restored) {
+            // JS re-adding a task recovered from the journal: keep its schedule and counters
+            task.executionCount = existing.executionCount;
+            task.retryAttempts = existing.retryAttempts;
+            task.lastExecutionTime = existing.lastExecutionTime;
+            if (ScheduledTask.STATUS_PENDING.equals(existing.status)) {
+                task.nextFireAt = existing.nextFireAt;
+            }
+        }
+        pending.add(task);
+        journal.putTask(task);
+        armWakeUp();
+    }
+
+    /**
+     * Holds a task read from the journal until addTask claims it. Nothing is queued: JS
+     * has to know a task to run it. Runs that were in flight when the process died are due
+     * again right away once claimed; paused and failed tasks stay parked.
+     */
+    private void restoreTask(ScheduledTask task) {
+        task.restored = true;
+        task.restoredAt = SystemClock.uptimeMillis();
+        tasks.put(task.taskId, task);
+        if (ScheduledTask.STATUS_RUNNING.equals(task.status)) {
+            task.status = ScheduledTask.STATUS_PENDING;
+            task.nextFireAt = task.restoredAt;
+        }
+    }
+
+    /**
+     * Returns false if the task is unknown, so callers can fall back to adding it.
+     */
+    synchronized boolean updateTask(String taskId, ReadableMap config) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task == null) {
+            return false;
+        }
+        dequeue(task);
+        endRun(task);
+        task.restored = false;
+        task.applyConfig(config);
+        task.status = ScheduledTask.STATUS_PENDING;
+        task.nextFireAt = SystemClock.uptimeMillis() + task.delay;
+        pending.add(task);
+        journal.putTask(task);
+        armWakeUp();
+        return true;
+    }
+
+    synchronized void pauseTask(String taskId) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task != null && !ScheduledTask.STATUS_PAUSED.equals(task.status)) {
+            dequeue(task);
+            endRun(task);
+            task.restored = false;
+            task.status = ScheduledTask.STATUS_PAUSED;
+            journal.putTask(task);
+            armWakeUp();
+        }
+    }
+
+    synchronized void resumeTask(String taskId) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task != null && ScheduledTask.STATUS_PAUSED.equals(task.status)) {
+            task.restored = false;
+            task.status = ScheduledTask.STATUS_PENDING;
+            task.nextFireAt = SystemClock.uptimeMillis() + task.delay;
+            pending.add(task);
+            journal.putTask(task);
+            armWakeUp();
+        }
+    }
+
+    synchronized void removeTask(String taskId) {
+        ScheduledTask task = tasks.remove(taskId);
+        if (task != null) {
+            dequeue(task);
+            endRun(task);
+            journal.removeTask(taskId);
+            armWakeUp();
+        }
+    }
+
+    synchronized void removeAllTasks() {
+        for (ScheduledTask task : tasks.values()) {
+            endRun(task);
+        }
+        tasks.clear();
+        pending.clear();
+        ready.clear();
+        journal.clearTasks();
+        armWakeUp();
+    }
+
+    /**
+     * Records the outcome of attempt (an executionCount, 0 for the current one) of a
+     * dispatched task and reschedules it (loop or retry) if needed. Returns the task after
+     * the transition, or null if it is no longer known.
+     */
+    @Nullable
+    synchronized ScheduledTask completeTask(String taskId, boolean success, int attempt) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task == null || !ScheduledTask.STATUS_RUNNING.equals(task.status)
+            || (attempt > 0 && attempt != task.executionCount)) {
+            // Unknown, or an attempt the watchdog already gave up on
+            return task;
+        }
+        applyOutcome(task, success);
+        return task;
+    }
+
+    /**
+     * Hands back a dispatched attempt JS could not run because it does not know the task
+     * yet, e.g. one restored from the journal before JS added it again. The attempt is
+     * undone, freeing its slot and wake lock, and the task is held unarmed until addTask
+     * picks it up, so it isn't dispatched again in a loop. It is dropped after
+     * RESTORED_TTL_MS if that never happens.
+     */
+    synchronized void releaseTask(String taskId, int attempt) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task == null || !ScheduledTask.STATUS_RUNNING.equals(task.status)
+            || (attempt > 0 && attempt != task.executionCount)) {
+            return;
+        }
+        endRun(task);
+        task.executionCount--;
+        task.status = ScheduledTask.STATUS_PENDING;
+        task.restored = true;
+        task.restoredAt = SystemClock.uptimeMillis();
+        journal.putTask(task);
+        armPrune();
+    }
+
+    /**
+     * Hands back a dispatched attempt whose event never reached JS, e.g. dropped from a full
+     * event buffer. The attempt is undone and the task is due again after REQUEUE_DELAY_MS.
+     */
+    synchronized void requeueTask(String taskId, int attempt) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task == null || !ScheduledTask.STATUS_RUNNING.equals(task.status)
+            || attempt != task.executionCount) {
+            return;
+        }
+        endAttempt(task);
+        releaseTrial(task);
+        task.executionCount--;
+        scheduleAt(task, SystemClock.uptimeMillis() + REQUEUE_DELAY_MS);
+    }
+
+    // Drops restored and released tasks JS has not claimed in time
+    private synchronized void pruneRestored() {
+        long now = SystemClock.uptimeMillis();
+        Iterator<ScheduledTask> iterator = tasks.values().iterator();
+        while (iterator.hasNext()) {
+            ScheduledTask task = iterator.next();
+            if (task.restored && now - task.restoredAt >= RESTORED_TTL_MS) {
+                iterator.remove();
+                journal.removeTask(task.taskId);
+            }
+        }
+        armPrune();
+    }
+
+    private void armPrune() {
+        long pruneAt = Long.MAX_VALUE;
+        for (ScheduledTask task : tasks.values()) {
+            if (task.restored) {
+                pruneAt = Math.min(pruneAt, task.restoredAt + RESTORED_TTL_MS);
+            }
+        }
+        handler.removeCallbacks(pruneRestored);
+        if (pruneAt != Long.MAX_VALUE) {
+            handler.postAtTime(pruneRestored, pruneAt);
+        }
+    }
+
+    private void applyOutcome(ScheduledTask task, boolean success) {
+        String taskId = task.taskId;
+        endAttempt(task);
+
+        CircuitBreaker breaker = breakerFor(task);
+        task.breakerTrial = false;
+        if (success) {
+            ServiceMetrics.tasksSucceeded.incrementAndGet();
+            watchdog.disarm(RUN_KEY + taskId);
+            if (breaker != null) {
+                breaker.recordSuccess();
+            }
+            task.retryAttempts = 0;
+            task.firstFailureAt = 0;
+            if (task.onLoop) {
+                reschedule(task);
+            } else {
+                // One-time tasks are dropped after completion
+                task.status = ScheduledTask.STATUS_COMPLETED;
+                tasks.remove(taskId);
+                journal.removeTask(taskId);
+            }
+        } else {
+            ServiceMetrics.tasksFailed.incrementAndGet();
+            long now = SystemClock.uptimeMillis();
+            if (breaker != null) {
+                breaker.recordFailure(now);
+            }
+            task.retryAttempts++;
+            long wallNow = System.currentTimeMillis();
+            if (task.firstFailureAt == 0) {
+                task.firstFailureAt = wallNow;
+            }
+            long retryDelay = task.nextRetryDelay(random);
+            boolean withinElapsed = task.retryMaxElapsed <= 0
+                || wallNow + retryDelay - task.firstFailureAt <= task.retryMaxElapsed;
+            if (task.retryAttempts <= task.retryCount && withinElapsed) {
+                ServiceMetrics.tasksRetried.incrementAndGet();
+                scheduleAt(task, now + retryDelay);
+            } else {
+                watchdog.disarm(RUN_KEY + taskId);
+                task.status = ScheduledTask.STATUS_FAILED;
+                journal.putTask(task);
+            }
+        }
+    }
+
+    // The attempt ran past the task timeout: it counts as a failed attempt
+    private synchronized void expireAttempt(String taskId, int attempt) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task == null || !ScheduledTask.STATUS_RUNNING.equals(task.status)
+            || attempt != task.executionCount) {
+            return;
+        }
+        applyOutcome(task, false);
+        listener.onTaskTimeout(task, DEADLINE_ATTEMPT);
+    }
+
+    // The run ran past totalTimeout: no more retries
+    private synchronized void expireRun(String taskId) {
+        ScheduledTask task = tasks.get(taskId);
+        if (task == null || !(ScheduledTask.STATUS_RUNNING.equals(task.status)
+            || ScheduledTask.STATUS_PENDING.equals(task.status))) {
+            return;
+        }
+        endAttempt(task);
+        releaseTrial(task);
+        dequeue(task);
+        ServiceMetrics.tasksFailed.incrementAndGet();
+        task.status = ScheduledTask.STATUS_FAILED;
+        journal.putTask(task);
+        armWakeUp();
+        listener.onTaskTimeout(task, DEADLINE_TOTAL);
+    }
+
+    synchronized void setMaxConcurrent(int limit) {
+        maxConcurrent = Math.max(1, limit);
+        handler.post(drain);
+    }
+
+    @Nullable
+    synchronized ScheduledTask getTask(String taskId) {
+        return tasks.get(taskId);
+    }
+
+    synchronized List<ScheduledTask> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    synchronized int getTaskCount() {
+        return tasks.size();
+    }
+
+    private void armDeadlines(ScheduledTask task) {
+        String taskId = task.taskId;
+        int attempt = task.executionCount;
+        if (task.timeout > 0) {
+            // Same allowance for a cold JS start as the wake lock gets
+            watchdog.arm(ATTEMPT_KEY + taskId, task.timeout + HeadlessTaskRunner.STARTUP_GRACE_MS,
+                () -> expireAttempt(taskId, attempt));
+        }
+        if (task.totalTimeout > 0 && task.retryAttempts == 0) {
+            watchdog.arm(RUN_KEY + taskId, task.totalTimeout, () -> expireRun(taskId));
+        }
+    }
+
+    // Drops what a running attempt holds: its slot, wake lock and attempt deadline
+    private void endAttempt(ScheduledTask task) {
+        if (ScheduledTask.STATUS_RUNNING.equals(task.status)) {
+            wakeLocks.release(task.taskId, task.wakeLockToken);
+            task.wakeLockToken = 0;
+            watchdog.disarm(ATTEMPT_KEY + task.taskId);
+            runningCount--;
+            if (!ready.isEmpty()) {
+                handler.post(drain);
+            }
+        }
+    }
+
+    private void dequeue(ScheduledTask task) {
+        if (!pending.remove(task)) {
+            ready.remove(task);
+        }
+    }
+
+    /**
+     * Removes and returns the ready task with the best effective priority: its priority
+     * rank less one level per AGING_INTERVAL_MS waited. Ties go to the longest waiting.
+     */
+    static ScheduledTask takeNextReady(List<ScheduledTask> ready, long now) {
+        int best = 0;
+        long bestRank = Long.MAX_VALUE;
+        for (int i = 0; i < ready.size(); i++) {
+            ScheduledTask task = ready.get(i);
+            long rank = task.getPriorityRank() - (now - task.nextFireAt) / AGING_INTERVAL_MS;
+            if (rank < bestRank || (rank == bestRank && task.nextFireAt < ready.get(best).nextFireAt)) {
+                best = i;
+                bestRank = rank;
+            }
+        }
+        return ready.remove(best);
+    }
+
+    private void endRun(ScheduledTask task) {
+        endAttempt(task);
+        releaseTrial(task);
+        watchdog.disarm(RUN_KEY + task.taskId);
+    }
+
+    private void releaseTrial(ScheduledTask task) {
+        if (task.breakerTrial) {
+            task.breakerTrial = false;
+            CircuitBreaker breaker = breakerFor(task);
+            if (breaker != null) {
+                breaker.cancelTrial();
+            }
+        }
+    }
+
+    @Nullable
+    private CircuitBreaker breakerFor(ScheduledTask task) {
+        if (task.breakerName == null) {
+            return null;
+        }
+        CircuitBreaker breaker = breakers.get(task.breakerName);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(task.breakerName, task.breakerFailureThreshold, task.breakerResetTimeout);
+            breakers.put(task.breakerName, breaker);
+        } else {
+            // The most recently configured task wins
+            breaker.failureThreshold = task.breakerFailureThreshold;
+            breaker.resetTimeout = task.breakerResetTimeout;
+        }
+        return breaker;
+    }
+
+    /**
+     * Breaker states and the retry progress of every task that has failed or has a breaker.
+     */
+    synchronized WritableMap getRetryState() {
+        long now = SystemClock.uptimeMillis();
+        WritableMap breakerStates = Arguments.createMap();
+        for (CircuitBreaker breaker : breakers.values()) {
+            breakerStates.putMap(breaker.name, breaker.toWritableMap(now));
+        }
+        WritableMap taskStates = Arguments.createMap();
+        for (ScheduledTask task : tasks.values()) {
+            if (task.retryAttempts == 0 && task.breakerName == null) {
+                continue;
+            }
+            WritableMap state = Arguments.createMap();
+            state.putString("status", task.status);
+            state.putInt("retryAttempts", task.retryAttempts);
+            state.putInt("retryCount", task.retryCount);
+            if (task.breakerName != null) {
+                state.putString("circuitBreaker", task.breakerName);
+            }
+            if (task.retryAttempts > 0 && ScheduledTask.STATUS_PENDING.equals(task.status)) {
+                state.putDouble("nextRetryAt", task.getNextExecutionTime());
+            }
+            taskStates.putMap(task.taskId, state);
+        }
+        WritableMap result = Arguments.createMap();
+        result.putMap("breakers", breakerStates);
+        result.putMap("tasks", taskStates);
+        return result;
+    }
+
+    private void reschedule(ScheduledTask task) {
+        scheduleAt(task, SystemClock.uptimeMillis() + task.delay);
+    }
+
+    private void scheduleAt(ScheduledTask task, long fireAt) {
+        task.status = ScheduledTask.STATUS_PENDING;
+        task.nextFireAt = fireAt;
+        pending.add(task);
+        journal.putTask(task);
+        armWakeUp();
+    }
+
+    // Keeps exactly one wake-up posted, for the earliest pending deadline
+    private void armWakeUp() {
+        ScheduledTask next = pending.peek();
+        long fireAt = next != null ? next.nextFireAt : Long.MAX_VALUE;
+        if (fireAt == armedFireAt) {
+            return;
+        }
+        handler.removeCallbacks(wakeUp);
+        armedFireAt = fireAt;
+        if (next != null) {
+            handler.postAtTime(wakeUp, fireAt);
+        }
+    }
+
+    private void dispatchDueTasks() {
+        List<ScheduledTask> due = new ArrayList<>();
+        synchronized (this) {
+            armedFireAt = Long.MAX_VALUE;
+            long now = SystemClock.uptimeMillis();
+            while (!pending.isEmpty() && pending.peek().nextFireAt <= now) {
+                ready.add(pending.poll());
+            }
+
+            List<ScheduledTask> held = new ArrayList<>();
+            while (runningCount < maxConcurrent && !ready.isEmpty()) {
+                ScheduledTask task = takeNextReady(ready, now);
+                CircuitBreaker breaker = task.retryAttempts > 0 ? breakerFor(task) : null;
+                if (breaker != null) {
+                    boolean closed = CircuitBreaker.STATE_CLOSED.equals(breaker.getState(now));
+                    if (!breaker.tryAcquire(now)) {
+                        // Breaker open: the retry waits until it half-opens
+                        task.nextFireAt = breaker.getRetryAt(now);
+                        held.add(task);
+                        continue;
+                    }
+                    task.breakerTrial = !closed;
+                }
+                ServiceMetrics.queueWait(task.priority).record(now - task.nextFireAt);
+                task.status = ScheduledTask.STATUS_RUNNING;
+                runningCount++;
+                // JS may still be booting; the timeout bounds the hold either way
+                task.wakeLockToken = wakeLocks.acquire(task.taskId,
+                    task.timeout > 0 ? task.timeout + HeadlessTaskRunner.STARTUP_GRACE_MS : 0);
+                task.executionCount++;
+                task.lastExecutionTime = System.currentTimeMillis();
+                ServiceMetrics.tasksExecuted.incrementAndGet();
+                armDeadlines(task);
+                journal.putTask(task);
+                due.add(task);
+            }
+            for (ScheduledTask task : held) {
+                pending.add(task);
+                journal.putTask(task);
+            }
+            armWakeUp();
+        }
+
+        // Handed over in dispatch order, outside the lock
+        for (ScheduledTask task : due) {
+            listener.onTaskDue(task);
+        }
+    }
+}
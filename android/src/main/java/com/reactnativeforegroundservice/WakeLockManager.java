@@ -0,0 +1,195 @@
+package com.reactnativeforegroundservice;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partial wake locks held on behalf of running tasks. Each task name gets its own wake lock
+ * while it is held, shared by concurrent runs of that task and released when the last run
+ * finishes. Every acquisition returns a token that its release has to present, so a late
+ * release can't drop a newer hold, and carries a hard timeout, so a task that never reports
+ * back cannot keep the device awake. Hold time is accounted per task for getServiceMetrics.
+ */
+final class WakeLockManager {
+    // Used when the task has no timeout of its own
+    static final long DEFAULT_TIMEOUT_MS = 10 * 60 * 1000;
+    private static final String TAG_PREFIX = "RNForegroundService:";
+
+    // One hold of a task's wake lock; dropped once its last acquisition is released
+    private final class Holder implements Runnable {
+        final String name;
+        final PowerManager.WakeLock wakeLock;
+        // Tokens of the acquisitions not released yet
+        final Set<Long> tokens = new HashSet<>();
+        long acquiredAt = 0;
+        long deadline = 0;
+
+        Holder(String name) {
+            this.name = name;
+            wakeLock = powerManager.newWakeLock(PowerManager.PARTIAL_WAKE_LOCK, TAG_PREFIX + name);
+            // Counting is done here, one acquire/release pair per hold
+            wakeLock.setReferenceCounted(false);
+        }
+
+        // Hard timeout: drops every acquisition at once
+        @Override
+        public void run() {
+            synchronized (WakeLockManager.this) {
+                if (holders.get(name) == this) {
+                    statsFor(name).timeouts++;
+                    releaseHolder(this);
+                }
+            }
+        }
+    }
+
+    // Totals per task name over the process lifetime
+    private static final class Stats {
+        long heldMs = 0;
+        long acquisitions = 0;
+        long timeouts = 0;
+    }
+
+    private static WakeLockManager instance;
+
+    static synchronized WakeLockManager get(Context context) {
+        if (instance == null) {
+            instance = new WakeLockManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Stats for getServiceMetrics, empty until a task has run in this process
+    static WritableMap snapshotStats() {
+        WakeLockManager manager;
+        synchronized (WakeLockManager.class) {
+            manager = instance;
+        }
+        return manager != null ? manager.snapshot() : Arguments.createMap();
+    }
+
+    static long totalHeldMs() {
+        WakeLockManager manager;
+        synchronized (WakeLockManager.class) {
+            manager = instance;
+        }
+        return manager != null ? manager.getTotalHeldMs() : 0;
+    }
+
+    private final PowerManager powerManager;
+    private final Handler timeoutHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, Holder> holders = new HashMap<>();
+    private final Map<String, Stats> stats = new HashMap<>();
+    private long nextToken = 1;
+
+    private WakeLockManager(Context context) {
+        powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    /**
+     * Acquires the wake lock for name and returns the token to release it with. The lock is
+     * force-released timeoutMs from now unless it is released earlier; a later acquire can
+     * only extend the deadline.
+     */
+    synchronized long acquire(String name, long timeoutMs) {
+        Holder holder = holders.get(name);
+        long now = SystemClock.elapsedRealtime();
+        if (holder == null) {
+            holder = new Holder(name);
+            holder.acquiredAt = now;
+            holders.put(name, holder);
+            statsFor(name).acquisitions++;
+        }
+        long token = nextToken++;
+        holder.tokens.add(token);
+        long deadline = now + (timeoutMs > 0 ? timeoutMs : DEFAULT_TIMEOUT_MS);
+        if (deadline > holder.deadline) {
+            holder.deadline = deadline;
+            // The platform timeout backs ours up if this process stalls
+            holder.wakeLock.acquire(deadline - now);
+            timeoutHandler.removeCallbacks(holder);
+            timeoutHandler.postDelayed(holder, deadline - now);
+        }
+        return token;
+    }
+
+    /**
+     * Releases the acquisition token came from; the wake lock is released with the last
+     * one. Tokens a timeout already dropped, or released before, are ignored.
+     */
+    synchronized void release(String name, long token) {
+        Holder holder = holders.get(name);
+        if (holder == null || !holder.tokens.remove(token)) {
+            return;
+        }
+        if (holder.tokens.isEmpty()) {
+            releaseHolder(holder);
+        }
+    }
+
+    synchronized void releaseAll() {
+        for (Holder holder : new ArrayList<>(holders.values())) {
+            releaseHolder(holder);
+        }
+    }
+
+    private void releaseHolder(Holder holder) {
+        statsFor(holder.name).heldMs += SystemClock.elapsedRealtime() - holder.acquiredAt;
+        holders.remove(holder.name);
+        timeoutHandler.removeCallbacks(holder);
+        if (holder.wakeLock.isHeld()) {
+            holder.wakeLock.release();
+        }
+    }
+
+    private Stats statsFor(String name) {
+        Stats entry = stats.get(name);
+        if (entry == null) {
+            entry = new Stats();
+            stats.put(name, entry);
+        }
+        return entry;
+    }
+
+    private long currentHoldMs(String name, long now) {
+        Holder holder = holders.get(name);
+        return holder != null ? now - holder.acquiredAt : 0;
+    }
+
+    private synchronized long getTotalHeldMs() {
+        long now = SystemClock.elapsedRealtime();
+        long total = 0;
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            total += entry.getValue().heldMs + currentHoldMs(entry.getKey(), now);
+        }
+        return total;
+    }
+
+    private synchronized WritableMap snapshot() {
+        long now = SystemClock.elapsedRealtime();
+        WritableMap result = Arguments.createMap();
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            String name = entry.getKey();
+            Stats totals = entry.getValue();
+            WritableMap item = Arguments.createMap();
+            item.putDouble("heldTime", totals.heldMs + currentHoldMs(name, now));
+            item.putDouble("acquisitions", totals.acquisitions);
+            item.putDouble("timeouts", totals.timeouts);
+            item.putBoolean("held", holders.containsKey(name));
+            result.putMap(name, item);
+        }
+        return result;
+    }
+}
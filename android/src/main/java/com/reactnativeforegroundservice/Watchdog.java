@@ -0,0 +1,170 @@
+package com.reactnativeforegroundservice;
+
+import android.app.AlarmManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Process-wide deadline tracker for running work. Every deadline lives in one queue
+ * ordered by expiry, and a single Handler message on the watchdog thread is armed for the
+ * earliest one, so tracking a deadline costs no timer or thread of its own.
+ *
+ * <p>Deadlines are keyed; arming a key again replaces its deadline. Expiry callbacks run
+ * on the watchdog thread and must hop to their owner's thread themselves.
+ *
+ * <p>Deadlines count elapsedRealtime, so time in deep sleep counts. Handler messages don't
+ * advance while the device sleeps, so once useAlarms has been called, deadlines at least
+ * ALARM_MIN_MS away are also backed by a wake-up alarm (API 24+).
+ */
+final class Watchdog {
+    private static final String TAG = "RNForegroundService";
+    private static final String ALARM_TAG = "RNForegroundService:watchdog";
+    // Shorter deadlines rely on the handler alone; the device rarely sleeps through them
+    static final long ALARM_MIN_MS = 60000;
+
+    private static final class Deadline {
+        final String key;
+        final long expiresAt;
+        final Runnable onExpire;
+
+        Deadline(String key, long expiresAt, Runnable onExpire) {
+            this.key = key;
+            this.expiresAt = expiresAt;
+            this.onExpire = onExpire;
+        }
+    }
+
+    private static Watchdog instance;
+
+    static synchronized Watchdog get() {
+        if (instance == null) {
+            instance = new Watchdog();
+        }
+        return instance;
+    }
+
+    // The watchdog if something has used it, without starting its thread otherwise
+    @Nullable
+    static synchronized Watchdog peek() {
+        return instance;
+    }
+
+    private final Map<String, Deadline> deadlines = new HashMap<>();
+    private final PriorityQueue<Deadline> queue =
+        new PriorityQueue<>(16, (a, b) -> Long.compare(a.expiresAt, b.expiresAt));
+    private final Handler handler;
+    private final Runnable check = this::expireDue;
+    private long armedAt = Long.MAX_VALUE;
+    @Nullable
+    private AlarmManager alarmManager;
+    @Nullable
+    private AlarmManager.OnAlarmListener alarm;
+    private boolean alarmArmed = false;
+
+    private Watchdog() {
+        HandlerThread thread = new HandlerThread("RNForegroundServiceWatchdog");
+        thread.start();
+        handler = new Handler(thread.getLooper());
+    }
+
+    /**
+     * Lets long deadlines wake the device. Without it they are checked only while it is
+     * awake, and expire late after deep sleep.
+     */
+    synchronized void useAlarms(Context context) {
+        if (alarmManager != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        alarmManager = (AlarmManager) context.getApplicationContext().getSystemService(Context.ALARM_SERVICE);
+        alarm = this::expireDue;
+        // Arm the alarm for a deadline that is already queued
+        armedAt = Long.MIN_VALUE;
+        rearm();
+    }
+
+    /**
+     * Calls onExpire once timeoutMs from now unless the key is disarmed or re-armed first.
+     */
+    synchronized void arm(String key, long timeoutMs, Runnable onExpire) {
+        Deadline previous = deadlines.remove(key);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        Deadline deadline = new Deadline(key, SystemClock.elapsedRealtime() + timeoutMs, onExpire);
+        deadlines.put(key, deadline);
+        queue.add(deadline);
+        rearm();
+    }
+
+    synchronized void disarm(String key) {
+        Deadline deadline = deadlines.remove(key);
+        if (deadline != null) {
+            queue.remove(deadline);
+            rearm();
+        }
+    }
+
+    synchronized int getArmedCount() {
+        return deadlines.size();
+    }
+
+    // Keeps exactly one check posted, and at most one alarm set, for the earliest deadline
+    private void rearm() {
+        Deadline next = queue.peek();
+        long at = next != null ? next.expiresAt : Long.MAX_VALUE;
+        if (at == armedAt) {
+            return;
+        }
+        handler.removeCallbacks(check);
+        if (alarmArmed) {
+            alarmManager.cancel(alarm);
+            alarmArmed = false;
+        }
+        armedAt = at;
+        if (next == null) {
+            return;
+        }
+        long delay = Math.max(0, at - SystemClock.elapsedRealtime());
+        handler.postDelayed(check, delay);
+        if (alarmManager != null && delay >= ALARM_MIN_MS
+            && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            alarmManager.set(AlarmManager.ELAPSED_REALTIME_WAKEUP, at, ALARM_TAG, alarm, handler);
+            alarmArmed = true;
+        }
+    }
+
+    private void expireDue() {
+        List<Deadline> expired = new ArrayList<>();
+        synchronized (this) {
+            // Forces rearm to clear the alarm or message that did not fire, even if none is due
+            armedAt = Long.MIN_VALUE;
+            long now = SystemClock.elapsedRealtime();
+            while (!queue.isEmpty() && queue.peek().expiresAt <= now) {
+                Deadline deadline = queue.poll();
+                deadlines.remove(deadline.key);
+                expired.add(deadline);
+            }
+            rearm();
+        }
+        // Outside the lock, callbacks may arm new deadlines
+        for (Deadline deadline : expired) {
+            try {
+                deadline.onExpire.run();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Watchdog callback for " + deadline.key + " failed", e);
+            }
+        }
+    }
+}
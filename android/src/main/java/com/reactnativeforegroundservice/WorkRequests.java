@@ -0,0 +1,200 @@
+package com.reactnativeforegroundservice;
+
+import androidx.annotation.Nullable;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkRequest;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds WorkManager requests for {@link HeadlessTaskWorker} from JS work configs. Invalid
+ * configs throw IllegalArgumentException.
+ */
+final class WorkRequests {
+    // Tag on every request enqueued by this module
+    static final String TAG = "RNForegroundService";
+
+    private WorkRequests() {
+    }
+
+    static boolean isPeriodic(ReadableMap config) {
+        return config.hasKey("repeatInterval");
+    }
+
+    static OneTimeWorkRequest buildOneTime(ReadableMap config) {
+        if (isPeriodic(config)) {
+            throw new IllegalArgumentException("repeatInterval is not allowed here");
+        }
+        OneTimeWorkRequest.Builder builder = new OneTimeWorkRequest.Builder(HeadlessTaskWorker.class);
+        apply(builder, config);
+        return builder.build();
+    }
+
+    static PeriodicWorkRequest buildPeriodic(ReadableMap config) {
+        long interval = (long) config.getDouble("repeatInterval");
+        if (interval < PeriodicWorkRequest.MIN_PERIODIC_INTERVAL_MILLIS) {
+            throw new IllegalArgumentException("repeatInterval must be at least "
+                + PeriodicWorkRequest.MIN_PERIODIC_INTERVAL_MILLIS + " ms");
+        }
+        PeriodicWorkRequest.Builder builder =
+            new PeriodicWorkRequest.Builder(HeadlessTaskWorker.class, interval, TimeUnit.MILLISECONDS);
+        apply(builder, config);
+        return builder.build();
+    }
+
+    static ExistingWorkPolicy parseWorkPolicy(@Nullable String policy) {
+        if (policy == null) {
+            return ExistingWorkPolicy.KEEP;
+        }
+        switch (policy) {
+            case "replace":
+                return ExistingWorkPolicy.REPLACE;
+            case "append":
+                return ExistingWorkPolicy.APPEND_OR_REPLACE;
+            case "keep":
+                return ExistingWorkPolicy.KEEP;
+            default:
+                throw new IllegalArgumentException("Unknown existingWorkPolicy: " + policy);
+        }
+    }
+
+    static ExistingPeriodicWorkPolicy parsePeriodicWorkPolicy(@Nullable String policy) {
+        if (policy == null) {
+            return ExistingPeriodicWorkPolicy.KEEP;
+        }
+        switch (policy) {
+            case "replace":
+                return ExistingPeriodicWorkPolicy.UPDATE;
+            case "keep":
+                return ExistingPeriodicWorkPolicy.KEEP;
+            default:
+                throw new IllegalArgumentException("Unknown existingWorkPolicy for periodic work: " + policy);
+        }
+    }
+
+    private static void apply(WorkRequest.Builder<?, ?> builder, ReadableMap config) {
+        if (!config.hasKey("taskName")) {
+            throw new IllegalArgumentException("taskName is required");
+        }
+        String taskName = config.getString("taskName");
+
+        Data.Builder data = new Data.Builder();
+        if (config.hasKey("data")) {
+            putData(data, config.getMap("data"));
+        }
+        data.putString(HeadlessTaskWorker.KEY_TASK_NAME, taskName);
+        if (config.hasKey("timeout")) {
+            data.putLong(HeadlessTaskWorker.KEY_TIMEOUT, (long) config.getDouble("timeout"));
+        }
+        if (config.hasKey("payload")) {
+            // Data is capped at 10 KB, so large inputs go by PayloadStore handle
+            String payload = config.getString("payload");
+            data.putString(HeadlessTaskWorker.KEY_PAYLOAD, payload);
+            // Keeps the payload from expiring until the work has finished
+            builder.addTag(PayloadStore.workTag(payload));
+        }
+        builder.setInputData(data.build());
+
+        if (config.hasKey("constraints")) {
+            builder.setConstraints(buildConstraints(config.getMap("constraints")));
+        }
+        if (config.hasKey("initialDelay")) {
+            builder.setInitialDelay((long) config.getDouble("initialDelay"), TimeUnit.MILLISECONDS);
+        }
+        if (config.hasKey("backoffDelay") || config.hasKey("backoffPolicy")) {
+            BackoffPolicy policy = config.hasKey("backoffPolicy") && "linear".equals(config.getString("backoffPolicy"))
+                ? BackoffPolicy.LINEAR
+                : BackoffPolicy.EXPONENTIAL;
+            long delay = config.hasKey("backoffDelay")
+                ? (long) config.getDouble("backoffDelay")
+                : WorkRequest.MIN_BACKOFF_MILLIS;
+            builder.setBackoffCriteria(policy, delay, TimeUnit.MILLISECONDS);
+        }
+
+        builder.addTag(TAG);
+        builder.addTag(taskName);
+        if (config.hasKey("tags")) {
+            ReadableArray tags = config.getArray("tags");
+            for (int i = 0; tags != null && i < tags.size(); i++) {
+                builder.addTag(tags.getString(i));
+            }
+        }
+    }
+
+    private static Constraints buildConstraints(@Nullable ReadableMap options) {
+        Constraints.Builder constraints = new Constraints.Builder();
+        if (options == null) {
+            return constraints.build();
+        }
+        if (options.hasKey("network")) {
+            constraints.setRequiredNetworkType(parseNetworkType(options.getString("network")));
+        }
+        if (options.hasKey("charging")) {
+            constraints.setRequiresCharging(options.getBoolean("charging"));
+        }
+        if (options.hasKey("batteryNotLow")) {
+            constraints.setRequiresBatteryNotLow(options.getBoolean("batteryNotLow"));
+        }
+        if (options.hasKey("storageNotLow")) {
+            constraints.setRequiresStorageNotLow(options.getBoolean("storageNotLow"));
+        }
+        if (options.hasKey("deviceIdle")) {
+            constraints.setRequiresDeviceIdle(options.getBoolean("deviceIdle"));
+        }
+        return constraints.build();
+    }
+
+    private static NetworkType parseNetworkType(String network) {
+        switch (network) {
+            case "none":
+                return NetworkType.NOT_REQUIRED;
+            case "connected":
+                return NetworkType.CONNECTED;
+            case "unmetered":
+                return NetworkType.UNMETERED;
+            case "notRoaming":
+                return NetworkType.NOT_ROAMING;
+            case "metered":
+                return NetworkType.METERED;
+            default:
+                throw new IllegalArgumentException("Unknown network constraint: " + network);
+        }
+    }
+
+    // WorkManager Data only holds primitives; nested values are rejected
+    private static void putData(Data.Builder data, @Nullable ReadableMap values) {
+        if (values == null) {
+            return;
+        }
+        ReadableMapKeySetIterator iterator = values.keySetIterator();
+        while (iterator.hasNextKey()) {
+            String key = iterator.nextKey();
+            switch (values.getType(key)) {
+                case String:
+                    data.putString(key, values.getString(key));
+                    break;
+                case Number:
+                    data.putDouble(key, values.getDouble(key));
+                    break;
+                case Boolean:
+                    data.putBoolean(key, values.getBoolean(key));
+                    break;
+                case Null:
+                    break;
+                default:
+                    throw new IllegalArgumentException("data." + key + " must be a string, number or boolean");
+            }
+        }
+    }
+}
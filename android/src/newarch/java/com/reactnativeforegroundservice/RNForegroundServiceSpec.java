@@ -0,0 +1,12 @@
+package com.reactnativeforegroundservice;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * New Architecture base: the codegen-generated TurboModule spec.
+ */
+abstract class RNForegroundServiceSpec extends NativeRNForegroundServiceSpec {
+    RNForegroundServiceSpec(ReactApplicationContext context) {
+        super(context);
+    }
+}
@@ -0,0 +1,114 @@
+package com.reactnativeforegroundservice;
+
+import androidx.annotation.Nullable;
+
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Legacy bridge base. Mirrors the methods of the codegen spec in
+ * src/NativeRNForegroundService.ts, so the module compiles against either architecture.
+ */
+abstract class RNForegroundServiceSpec extends ReactContextBaseJavaModule {
+    RNForegroundServiceSpec(ReactApplicationContext context) {
+        super(context);
+    }
+
+    public abstract void startService(ReadableMap options, Promise promise);
+
+    public abstract void stopService(@Nullable String taskName, Promise promise);
+
+    public abstract void stopServiceAll(Promise promise);
+
+    public abstract void updateService(ReadableMap options, Promise promise);
+
+    public abstract void isServiceRunning(Promise promise);
+
+    public abstract void getServiceCount(Promise promise);
+
+    public abstract void getServiceStatus(Promise promise);
+
+    public abstract void getServiceMetrics(Promise promise);
+
+    public abstract void getNotificationUpdateStats(Promise promise);
+
+    public abstract void getRetryState(Promise promise);
+
+    public abstract void cancelNotification(double notificationId, Promise promise);
+
+    public abstract void executeBatch(ReadableArray ops, Promise promise);
+
+    public abstract boolean isServiceRunningSync();
+
+    public abstract double getServiceCountSync();
+
+    public abstract WritableMap getServiceStatusSync();
+
+    public abstract boolean checkPermissionSync();
+
+    public abstract double openProgressChannelSync(String taskName);
+
+    public abstract boolean writeProgressSync(double channel, double curr, double max);
+
+    public abstract boolean closeProgressChannelSync(double channel);
+
+    public abstract void checkPermission(Promise promise);
+
+    public abstract void requestPermission(Promise promise);
+
+    public abstract void checkNotificationPermission(Promise promise);
+
+    public abstract void checkBatteryOptimization(Promise promise);
+
+    public abstract void requestBatteryOptimizationExemption(Promise promise);
+
+    public abstract void registerForegroundTask(String taskName, Promise promise);
+
+    public abstract void runTask(ReadableMap taskConfig, Promise promise);
+
+    public abstract void stopTask(String taskName, Promise promise);
+
+    public abstract void addTask(ReadableMap config, Promise promise);
+
+    public abstract void updateTask(String taskId, ReadableMap config, Promise promise);
+
+    public abstract void pauseTask(String taskId, Promise promise);
+
+    public abstract void resumeTask(String taskId, Promise promise);
+
+    public abstract void removeTask(String taskId, Promise promise);
+
+    public abstract void removeAllTasks(Promise promise);
+
+    public abstract void completeTask(String taskId, boolean success, double attempt, Promise promise);
+
+    public abstract void releaseTask(String taskId, double attempt, Promise promise);
+
+    public abstract void getAllTasks(Promise promise);
+
+    public abstract void enqueueWork(ReadableMap config, Promise promise);
+
+    public abstract void enqueueWorkChain(String uniqueName, ReadableArray configs, @Nullable String existingWorkPolicy, Promise promise);
+
+    public abstract void cancelWork(String uniqueName, Promise promise);
+
+    public abstract void getWorkInfo(String uniqueName, Promise promise);
+
+    public abstract void createPayload(String data, Promise promise);
+
+    public abstract void getPayloadInfo(String handle, Promise promise);
+
+    public abstract void readPayload(String handle, Promise promise);
+
+    public abstract void releasePayload(String handle, Promise promise);
+
+    public abstract void publishTaskResult(String taskName, String handle, Promise promise);
+
+    public abstract void addListener(String eventName);
+
+    public abstract void removeListeners(double count);
+}
@@ -0,0 +1,85 @@
+package com.reactnativeforegroundservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+    private static final long RESET_TIMEOUT = 10000;
+
+    @Test
+    public void opensAfterTheFailureThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("api", 3, RESET_TIMEOUT);
+
+        breaker.recordFailure(0);
+        breaker.recordFailure(0);
+        assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState(0));
+        assertTrue(breaker.tryAcquire(0));
+
+        breaker.recordFailure(100);
+        assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState(100));
+        assertFalse(breaker.tryAcquire(100));
+        assertEquals(100 + RESET_TIMEOUT, breaker.getRetryAt(100));
+    }
+
+    @Test
+    public void successResetsTheFailureCount() {
+        CircuitBreaker breaker = new CircuitBreaker("api", 2, RESET_TIMEOUT);
+
+        breaker.recordFailure(0);
+        breaker.recordSuccess();
+        breaker.recordFailure(0);
+
+        assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState(0));
+    }
+
+    @Test
+    public void letsASingleTrialThroughWhenHalfOpen() {
+        CircuitBreaker breaker = new CircuitBreaker("api", 1, RESET_TIMEOUT);
+        breaker.recordFailure(0);
+
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, breaker.getState(RESET_TIMEOUT));
+        assertTrue(breaker.tryAcquire(RESET_TIMEOUT));
+        assertFalse(breaker.tryAcquire(RESET_TIMEOUT));
+    }
+
+    @Test
+    public void successfulTrialCloses() {
+        CircuitBreaker breaker = new CircuitBreaker("api", 1, RESET_TIMEOUT);
+        breaker.recordFailure(0);
+        breaker.tryAcquire(RESET_TIMEOUT);
+
+        breaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState(RESET_TIMEOUT));
+        assertTrue(breaker.tryAcquire(RESET_TIMEOUT));
+    }
+
+    @Test
+    public void failedTrialReopensForAnotherResetTimeout() {
+        CircuitBreaker breaker = new CircuitBreaker("api", 3, RESET_TIMEOUT);
+        for (int i = 0; i < 3; i++) {
+            breaker.recordFailure(0);
+        }
+        breaker.tryAcquire(RESET_TIMEOUT);
+
+        breaker.recordFailure(RESET_TIMEOUT);
+
+        assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState(RESET_TIMEOUT + 1));
+        assertFalse(breaker.tryAcquire(2 * RESET_TIMEOUT - 1));
+        assertTrue(breaker.tryAcquire(2 * RESET_TIMEOUT));
+    }
+
+    @Test
+    public void cancelledTrialFreesTheSlot() {
+        CircuitBreaker breaker = new CircuitBreaker("api", 1, RESET_TIMEOUT);
+        breaker.recordFailure(0);
+        breaker.tryAcquire(RESET_TIMEOUT);
+
+        breaker.cancelTrial();
+
+        assertTrue(breaker.tryAcquire(RESET_TIMEOUT));
+    }
+}
@@ -0,0 +1,71 @@
+package com.reactnativeforegroundservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Locale;
+
+public class ProgressTemplateTest {
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void fillsEveryPlaceholder() {
+        String text = ProgressTemplate.format("{current}/{max} {percent}% {rate} {eta} {other}",
+            3_000_000_000L, 6_000_000_000L, 1024 * 1024, ProgressTemplate.UNIT_BYTES);
+
+        assertEquals("3000000000/6000000000 50% 1.0 MB 47m {other}", text);
+    }
+
+    @Test
+    public void etaIsUnknownWithoutARate() {
+        assertEquals("--", ProgressTemplate.format("{eta}", 10, 100, 0, "count"));
+    }
+
+    @Test
+    public void rateHoldsUntilTheCounterStalls() {
+        ProgressTemplate.RateEstimator estimator = new ProgressTemplate.RateEstimator();
+        estimator.sample(0, 1000);
+        estimator.sample(1000, 2000);
+
+        assertEquals(1000, estimator.getRate(2000), 0.001);
+        assertEquals(1000, estimator.getRate(4000), 0.001);
+    }
+
+    @Test
+    public void rateFadesOnAStallAndDropsToZero() {
+        ProgressTemplate.RateEstimator estimator = new ProgressTemplate.RateEstimator();
+        estimator.sample(0, 1000);
+        estimator.sample(1000, 2000);
+
+        double faded = estimator.getRate(6000);
+        assertTrue("faded to " + faded, faded > 0 && faded < 1000);
+        assertTrue(estimator.getRate(12000) < faded);
+        assertEquals(0, estimator.getRate(32000), 0);
+    }
+
+    @Test
+    public void counterGoingBackwardsStartsOver() {
+        ProgressTemplate.RateEstimator estimator = new ProgressTemplate.RateEstimator();
+        estimator.sample(0, 1000);
+        estimator.sample(1000, 2000);
+
+        estimator.sample(10, 3000);
+
+        assertEquals(0, estimator.getRate(3000), 0);
+    }
+}
@@ -0,0 +1,85 @@
+package com.reactnativeforegroundservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ScheduledTaskTest {
+    @Test
+    public void fixedBackoffRepeatsTheInitialDelay() {
+        ScheduledTask task = new ScheduledTask("task");
+        task.retryBackoff = ScheduledTask.BACKOFF_FIXED;
+        task.retryInitialDelay = 2000;
+        Random random = new Random(1);
+
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            task.retryAttempts = attempt;
+            assertEquals(2000, task.nextRetryDelay(random));
+        }
+    }
+
+    @Test
+    public void exponentialBackoffStaysUnderTheDoublingCeiling() {
+        ScheduledTask task = new ScheduledTask("task");
+        task.retryInitialDelay = 1000;
+        task.retryMaxDelay = 60000;
+        Random random = new Random(42);
+
+        for (int attempt = 1; attempt <= 12; attempt++) {
+            task.retryAttempts = attempt;
+            long ceiling = Math.min(60000, 1000L << (attempt - 1));
+            for (int i = 0; i < 200; i++) {
+                long delay = task.nextRetryDelay(random);
+                assertTrue("attempt " + attempt + " gave " + delay, delay >= 0 && delay < ceiling);
+            }
+        }
+    }
+
+    @Test
+    public void exponentialBackoffUsesTheWholeJitterRange() {
+        ScheduledTask task = new ScheduledTask("task");
+        task.retryInitialDelay = 1000;
+        task.retryAttempts = 4;
+        Random random = new Random(7);
+
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        for (int i = 0; i < 1000; i++) {
+            long delay = task.nextRetryDelay(random);
+            min = Math.min(min, delay);
+            max = Math.max(max, delay);
+        }
+        // Full jitter over [0, 8000)
+        assertTrue("min " + min, min < 800);
+        assertTrue("max " + max, max > 7200);
+    }
+
+    @Test
+    public void highAttemptCountsDoNotOverflow() {
+        ScheduledTask task = new ScheduledTask("task");
+        task.retryInitialDelay = 1000;
+        task.retryMaxDelay = Long.MAX_VALUE;
+        Random random = new Random(3);
+
+        for (int attempt : new int[] {31, 63, 64, 1000, Integer.MAX_VALUE}) {
+            task.retryAttempts = attempt;
+            long delay = task.nextRetryDelay(random);
+            assertTrue("attempt " + attempt + " gave " + delay, delay >= 0 && delay < (1000L << 30));
+        }
+    }
+
+    @Test
+    public void initialDelayDefaultsToTheTaskDelay() {
+        ScheduledTask task = new ScheduledTask("task");
+        task.retryBackoff = ScheduledTask.BACKOFF_FIXED;
+
+        task.delay = 5000;
+        assertEquals(5000, task.nextRetryDelay(new Random()));
+        // Never below one second
+        task.delay = 10;
+        assertEquals(1000, task.nextRetryDelay(new Random()));
+    }
+}
@@ -0,0 +1,139 @@
+package com.reactnativeforegroundservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TaskJournalTest {
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("journal", ".bin");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void replaysTasksAfterReopen() {
+        TaskJournal journal = TaskJournal.open(file);
+        ScheduledTask task = new ScheduledTask("sync");
+        task.delay = 5000;
+        task.onLoop = true;
+        task.priority = "high";
+        task.retryCount = 3;
+        task.breakerName = "api";
+        task.status = ScheduledTask.STATUS_PAUSED;
+        task.executionCount = 7;
+        task.retryAttempts = 2;
+        journal.putTask(task);
+
+        List<ScheduledTask> tasks = TaskJournal.open(file).readTasks();
+
+        assertEquals(1, tasks.size());
+        ScheduledTask restored = tasks.get(0);
+        assertEquals("sync", restored.taskId);
+        assertEquals(5000, restored.delay);
+        assertTrue(restored.onLoop);
+        assertEquals("high", restored.priority);
+        assertEquals(3, restored.retryCount);
+        assertEquals("api", restored.breakerName);
+        assertEquals(ScheduledTask.STATUS_PAUSED, restored.status);
+        assertEquals(7, restored.executionCount);
+        assertEquals(2, restored.retryAttempts);
+    }
+
+    @Test
+    public void keepsOnlyTheLatestRecordPerTaskAcrossCompactions() {
+        TaskJournal journal = TaskJournal.open(file);
+        // Far more than the initial 64 KB, so the journal compacts while appending
+        for (int i = 0; i < 5000; i++) {
+            ScheduledTask task = new ScheduledTask("task" + (i % 7));
+            task.executionCount = i;
+            journal.putTask(task);
+        }
+        journal.removeTask("task3");
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (ScheduledTask task : TaskJournal.open(file).readTasks()) {
+            counts.put(task.taskId, task.executionCount);
+        }
+
+        assertEquals(6, counts.size());
+        assertEquals(Integer.valueOf(4998), counts.get("task0"));
+        assertEquals(Integer.valueOf(4997), counts.get("task6"));
+        assertFalse(counts.containsKey("task3"));
+        assertTrue("compacted to " + file.length(), file.length() <= 64 * 1024);
+    }
+
+    @Test
+    public void clearDropsEveryTask() {
+        TaskJournal journal = TaskJournal.open(file);
+        journal.putTask(new ScheduledTask("a"));
+        journal.putTask(new ScheduledTask("b"));
+        journal.clearTasks();
+        journal.putTask(new ScheduledTask("c"));
+
+        List<ScheduledTask> tasks = TaskJournal.open(file).readTasks();
+
+        assertEquals(1, tasks.size());
+        assertEquals("c", tasks.get(0).taskId);
+    }
+
+    @Test
+    public void ignoresATornRecordAndEverythingAfterIt() throws IOException {
+        TaskJournal journal = TaskJournal.open(file);
+        journal.putTask(new ScheduledTask("a"));
+        journal.putTask(new ScheduledTask("b"));
+        corruptLastRecord();
+
+        List<ScheduledTask> tasks = TaskJournal.open(file).readTasks();
+
+        assertEquals(1, tasks.size());
+        assertEquals("a", tasks.get(0).taskId);
+    }
+
+    @Test
+    public void startsEmptyOnAGarbageLength() throws IOException {
+        TaskJournal.open(file).putTask(new ScheduledTask("a"));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            // Length of the first record, right after the header and its type byte
+            raf.seek(8 + 1);
+            raf.writeInt(Integer.MAX_VALUE);
+        }
+
+        assertEquals(0, TaskJournal.open(file).readTasks().size());
+    }
+
+    // Flips a bit in the CRC of the last record: [type:1][length:4][payload][crc32:4]
+    private void corruptLastRecord() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int position = 8;
+            while (bytes[position] != 0) {
+                position += 1 + 4 + buffer.getInt(position + 1) + 4;
+            }
+            raf.seek(position - 1);
+            raf.write(bytes[position - 1] ^ 0x01);
+        }
+    }
+}
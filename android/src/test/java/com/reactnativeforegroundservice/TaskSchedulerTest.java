@@ -0,0 +1,60 @@
+package com.reactnativeforegroundservice;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class TaskSchedulerTest {
+    @Test
+    public void takesTheHighestPriorityFirst() {
+        ScheduledTask low = task("low", "low", 0);
+        ScheduledTask normal = task("normal", "normal", 0);
+        ScheduledTask high = task("high", "high", 0);
+        List<ScheduledTask> ready = new ArrayList<>(Arrays.asList(low, normal, high));
+
+        assertSame(high, TaskScheduler.takeNextReady(ready, 0));
+        assertSame(normal, TaskScheduler.takeNextReady(ready, 0));
+        assertSame(low, TaskScheduler.takeNextReady(ready, 0));
+        assertEquals(0, ready.size());
+    }
+
+    @Test
+    public void breaksTiesByTimeWaited() {
+        ScheduledTask later = task("later", "normal", 500);
+        ScheduledTask earlier = task("earlier", "normal", 100);
+        List<ScheduledTask> ready = new ArrayList<>(Arrays.asList(later, earlier));
+
+        assertSame(earlier, TaskScheduler.takeNextReady(ready, 1000));
+    }
+
+    @Test
+    public void agedLowPriorityTaskOvertakesNewHighPriorityOnes() {
+        // Due for two aging intervals: rank 3 - 2 = 1, level with a fresh high task
+        ScheduledTask low = task("low", "low", 0);
+        ScheduledTask high = task("high", "high", 20000);
+        List<ScheduledTask> ready = new ArrayList<>(Arrays.asList(high, low));
+
+        assertSame(low, TaskScheduler.takeNextReady(ready, 20000));
+    }
+
+    @Test
+    public void lowPriorityTaskWaitsWhileItHasNotAgedEnough() {
+        ScheduledTask low = task("low", "low", 0);
+        ScheduledTask high = task("high", "high", 19000);
+        List<ScheduledTask> ready = new ArrayList<>(Arrays.asList(low, high));
+
+        assertSame(high, TaskScheduler.takeNextReady(ready, 19999));
+    }
+
+    private static ScheduledTask task(String taskId, String priority, long dueAt) {
+        ScheduledTask task = new ScheduledTask(taskId);
+        task.priority = priority;
+        task.nextFireAt = dueAt;
+        return task;
+    }
+}
@@ -33,10 +33,46 @@ jest.mock('react-native', () => {
           memoryUsage: 0,
           batteryImpact: 'low'
         })),
+        getNotificationUpdateStats: jest.fn(() => Promise.resolve({
+          submitted: 0,
+          posted: 0,
+          coalesced: 0,
+          dropped: 0,
+          sent: 0,
+          skipped: 0
+        })),
+        getRetryState: jest.fn(() => Promise.resolve({ breakers: {}, tasks: {} })),
         requestBatteryOptimizationExemption: jest.fn(() => Promise.resolve(true)),
-        registerForegroundTask: jest.fn(),
+        registerForegroundTask: jest.fn(() => Promise.resolve()),
         runTask: jest.fn(() => Promise.resolve()),
+        stopTask: jest.fn(() => Promise.resolve()),
         cancelNotification: jest.fn(() => Promise.resolve()),
+        addTask: jest.fn(() => Promise.resolve()),
+        updateTask: jest.fn(() => Promise.resolve()),
+        pauseTask: jest.fn(() => Promise.resolve()),
+        resumeTask: jest.fn(() => Promise.resolve()),
+        removeTask: jest.fn(() => Promise.resolve()),
+        removeAllTasks: jest.fn(() => Promise.resolve()),
+        completeTask: jest.fn(() => Promise.resolve(null)),
+        releaseTask: jest.fn(() => Promise.resolve()),
+        getAllTasks: jest.fn(() => Promise.resolve({})),
+        isServiceRunningSync: jest.fn(() => false),
+        getServiceCountSync: jest.fn(() => 0),
+        getServiceStatusSync: jest.fn(() => ({ isRunning: false, state: 'idle' })),
+        checkPermissionSync: jest.fn(() => true),
+        openProgressChannelSync: jest.fn(() => 0),
+        writeProgressSync: jest.fn(() => true),
+        closeProgressChannelSync: jest.fn(() => true),
+        enqueueWork: jest.fn(() => Promise.resolve('work-1')),
+        enqueueWorkChain: jest.fn(() => Promise.resolve(['work-1', 'work-2'])),
+        cancelWork: jest.fn(() => Promise.resolve()),
+        getWorkInfo: jest.fn(() => Promise.resolve([{ id: 'work-1', state: 'enqueued', runAttemptCount: 0 }])),
+        createPayload: jest.fn(() => Promise.resolve({ handle: 'ab12', uri: 'file:///data/payloads/ab12', size: 5 })),
+        getPayloadInfo: jest.fn(() => Promise.resolve({ handle: 'ab12', uri: 'file:///data/payloads/ab12', size: 5 })),
+        readPayload: jest.fn(() => Promise.resolve('hello')),
+        releasePayload: jest.fn(() => Promise.resolve(true)),
+        publishTaskResult: jest.fn(() => Promise.resolve()),
+        executeBatch: jest.fn((ops) => Promise.resolve(ops.map(() => ({ ok: true })))),
       },
     },
   };
@@ -1,11 +1,23 @@
-import { NativeModules, Platform, PermissionsAndroid, NativeEventEmitter, AppRegistry } from 'react-native';
+import { Platform, PermissionsAndroid, AppRegistry } from 'react-native';
 import type { 
   ForegroundServiceOptions, 
   ForegroundServiceModule, 
   ForegroundServiceEventListener,
   ServiceMetrics,
+  NotificationUpdateStats,
+  RetryState,
+  NativeServiceStatus,
+  ServiceStatus,
+  BatchOperation,
+  BatchResult,
+  WorkConfig,
+  WorkInfo,
+  PayloadInfo,
   TaskManagerInterface
 } from './index';
+import { getRNForegroundServiceNative } from './native';
+import { getNativeEventHub } from './NativeEvents';
+import type { NativeEventHub } from './NativeEvents';
 
 const LINKING_ERROR =
   `The package 'react-native-background-task-manager' doesn't seem to be linked. Make sure: \n\n` +
@@ -13,26 +25,27 @@ const LINKING_ERROR =
   '- You rebuilt the app after installing the package\n' +
   '- You are not using Expo managed workflow\n';
 
-const RNForegroundService = NativeModules.RNForegroundService ?? new Proxy(
-      {},
-      {
-        get() {
-          throw new Error(LINKING_ERROR);
-        },
+// Resolves the native module on first call, so importing the library costs nothing natively
+const RNForegroundService: any = new Proxy(
+  {},
+  {
+    get(_target, property) {
+      const nativeModule = getRNForegroundServiceNative();
+      if (!nativeModule) {
+        throw new Error(LINKING_ERROR);
       }
-    );
+      const value = nativeModule[property];
+      return typeof value === 'function' ? value.bind(nativeModule) : value;
+    },
+  }
+);
 
 class ForegroundServiceClass implements ForegroundServiceModule {
-  private readonly eventEmitter: NativeEventEmitter | null = null;
-  
-  // Enhanced service tracking
-  private serviceStartTime: number | null = null;
-  private serviceCount: number = 0;
+  private taskTimeoutSubscriptions: { remove(): void }[] = [];
 
-  constructor() {
-    if (Platform.OS === 'android' && RNForegroundService) {
-      this.eventEmitter = new NativeEventEmitter(RNForegroundService);
-    }
+  // Created on first use; it registers a native listener, which creates the native module
+  private get eventHub(): NativeEventHub | null {
+    return getNativeEventHub();
   }
 
   /**
@@ -65,29 +78,22 @@ class ForegroundServiceClass implements ForegroundServiceModule {
       }
 
       await RNForegroundService.startService(options);
-      this.serviceStartTime = Date.now();
-      this.serviceCount++;
-      
     } catch (error) {
       throw new Error(`Failed to start foreground service: ${error}`);
     }
   }
 
   /**
-   * Stop the foreground service with enhanced tracking
+   * Stop the foreground service with enhanced tracking. With a taskName only that logical
+   * service (and its notification) is stopped; the others keep running.
    */
-  async stopService(): Promise<void> {
+  async stopService(taskName?: string): Promise<void> {
     if (Platform.OS !== 'android') {
       return;
     }
 
     try {
-      await RNForegroundService.stopService();
-      this.serviceCount = Math.max(0, this.serviceCount - 1);
-      
-      if (this.serviceCount === 0) {
-        this.serviceStartTime = null;
-      }
+      await RNForegroundService.stopService(taskName ?? null);
     } catch (error) {
       throw new Error(`Failed to stop foreground service: ${error}`);
     }
@@ -103,8 +109,6 @@ class ForegroundServiceClass implements ForegroundServiceModule {
 
     try {
       await RNForegroundService.stopServiceAll();
-      this.serviceCount = 0;
-      this.serviceStartTime = null;
     } catch (error) {
       throw new Error(`Failed to stop all foreground services: ${error}`);
     }
@@ -132,6 +136,84 @@ class ForegroundServiceClass implements ForegroundServiceModule {
     return RNForegroundService.isServiceRunning();
   }
 
+  /**
+   * Synchronous isServiceRunning, answered from native in-memory state
+   */
+  isServiceRunningSync(): boolean {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+
+    return RNForegroundService.isServiceRunningSync();
+  }
+
+  /**
+   * Synchronous service status, answered from native in-memory state
+   */
+  getServiceStatusSync(): NativeServiceStatus {
+    if (Platform.OS !== 'android') {
+      return { isRunning: false, state: 'idle' };
+    }
+
+    return RNForegroundService.getServiceStatusSync();
+  }
+
+  /**
+   * Synchronous getServiceCount
+   */
+  getServiceCountSync(): number {
+    if (Platform.OS !== 'android') {
+      return 0;
+    }
+
+    return RNForegroundService.getServiceCountSync();
+  }
+
+  /**
+   * Synchronous checkPermission
+   */
+  checkPermissionSync(): boolean {
+    if (Platform.OS !== 'android') {
+      return true;
+    }
+
+    return RNForegroundService.checkPermissionSync();
+  }
+
+  /**
+   * Open a progress channel for a running logical service. Returns a handle for
+   * writeProgressSync, or -1 if no channel is free.
+   */
+  openProgressChannelSync(taskName: string): number {
+    if (Platform.OS !== 'android') {
+      return -1;
+    }
+
+    return RNForegroundService.openProgressChannelSync(taskName);
+  }
+
+  /**
+   * Store progress in a channel; the service picks it up at its refresh rate
+   */
+  writeProgressSync(channel: number, curr: number, max: number): boolean {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+
+    return RNForegroundService.writeProgressSync(channel, curr, max);
+  }
+
+  /**
+   * Release a progress channel
+   */
+  closeProgressChannelSync(channel: number): void {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    RNForegroundService.closeProgressChannelSync(channel);
+  }
+
   /**
    * Check if app has foreground service permission
    */
@@ -215,7 +297,7 @@ class ForegroundServiceClass implements ForegroundServiceModule {
    * Register event listeners for service events
    */
   addEventListener(listener: ForegroundServiceEventListener): void {
-    if (!this.eventEmitter || Platform.OS !== 'android') {
+    if (!this.eventHub || Platform.OS !== 'android') {
       return;
     }
 
@@ -225,96 +307,111 @@ class ForegroundServiceClass implements ForegroundServiceModule {
       { event: 'onServiceError', callback: listener.onServiceError },
       { event: 'onButtonPress', callback: listener.onButtonPress },
       { event: 'onActionPress', callback: listener.onActionPress },
-      { event: 'onTaskComplete', callback: listener.onTaskComplete }
+      { event: 'onTaskComplete', callback: listener.onTaskComplete },
+      { event: 'onTaskResult', callback: listener.onTaskResult }
     ];
 
     eventMap.forEach(({ event, callback }) => {
       if (callback) {
-        this.eventEmitter!.addListener(event, callback);
+        this.eventHub!.addListener(event, callback);
       }
     });
 
     // Handle onTaskError separately due to multiple parameters
     if (listener.onTaskError) {
-      this.eventEmitter.addListener('onTaskError', (event: { taskId: string; error: string }) => {
+      this.eventHub.addListener('onTaskError', (event: { taskId: string; error: string }) => {
         listener.onTaskError!(event.taskId, event.error);
       });
     }
+
+    // TaskManager listens to onTaskTimeout too, so this one is removed by subscription
+    if (listener.onTaskTimeout) {
+      this.taskTimeoutSubscriptions.push(
+        this.eventHub.addListener('onTaskTimeout', listener.onTaskTimeout)
+      );
+    }
+
+    if (listener.onServiceTimeout) {
+      this.eventHub.addListener('onServiceTimeout', (event: { taskName: string }) => {
+        listener.onServiceTimeout!(event.taskName);
+      });
+    }
   }
 
   /**
    * Remove event listeners
    */
   removeEventListener(): void {
-    if (this.eventEmitter && Platform.OS === 'android') {
-      this.eventEmitter.removeAllListeners('onServiceStart');
-      this.eventEmitter.removeAllListeners('onServiceStop');
-      this.eventEmitter.removeAllListeners('onServiceError');
-      this.eventEmitter.removeAllListeners('onButtonPress');
-      this.eventEmitter.removeAllListeners('onActionPress');
-      this.eventEmitter.removeAllListeners('onTaskComplete');
-      this.eventEmitter.removeAllListeners('onTaskError');
+    if (this.eventHub && Platform.OS === 'android') {
+      this.eventHub.removeAllListeners('onServiceStart');
+      this.eventHub.removeAllListeners('onServiceStop');
+      this.eventHub.removeAllListeners('onServiceError');
+      this.eventHub.removeAllListeners('onButtonPress');
+      this.eventHub.removeAllListeners('onActionPress');
+      this.eventHub.removeAllListeners('onTaskComplete');
+      this.eventHub.removeAllListeners('onTaskError');
+      this.taskTimeoutSubscriptions.forEach(subscription => subscription.remove());
+      this.taskTimeoutSubscriptions = [];
+      this.eventHub.removeAllListeners('onServiceTimeout');
+      this.eventHub.removeAllListeners('onTaskResult');
     }
   }
 
   /**
-   * Get current service status with detailed information and enhanced tracking
+   * Get current service status from the native registry, with the JS task count
    */
-  async getServiceStatus(): Promise<{
-    isRunning: boolean;
-    startTime?: number;
-    serviceType?: string;
-    notificationId?: number;
-    uptime?: number;
-    taskCount?: number;
-  }> {
+  async getServiceStatus(): Promise<ServiceStatus> {
     if (Platform.OS !== 'android') {
-      return { isRunning: false };
+      return { isRunning: false, state: 'idle' };
     }
     
     try {
-      const isRunning = await this.isServiceRunning();
-      const taskStats = this.TaskManager.getStats();
-      
-      const result: {
-        isRunning: boolean;
-        startTime?: number;
-        serviceType?: string;
-        notificationId?: number;
-        uptime?: number;
-        taskCount?: number;
-      } = {
-        isRunning,
-        taskCount: taskStats.totalTasks,
-        notificationId: 1,
-      };
-
-      if (this.serviceStartTime !== null && this.serviceStartTime !== undefined) {
-        result.startTime = this.serviceStartTime;
-        result.uptime = Date.now() - this.serviceStartTime;
-      }
-
-      return result;
+      const status = (await RNForegroundService.getServiceStatus()) as NativeServiceStatus;
+      return { ...status, taskCount: this.TaskManager.getStats().totalTasks };
     } catch (error) {
       console.error('Error getting service status:', error);
-      return { isRunning: false };
+      return { isRunning: false, state: 'idle' };
     }
   }
 
   /**
-   * Get service performance metrics with enhanced tracking
+   * Get service performance metrics collected natively
    */
   async getServiceMetrics(): Promise<ServiceMetrics> {
-    const taskStats = this.TaskManager.getStats();
-    
-    return {
-      uptime: this.serviceStartTime ? Date.now() - this.serviceStartTime : 0,
-      tasksExecuted: taskStats.totalTasks,
-      tasksSucceeded: taskStats.completedTasks,
-      tasksFailed: taskStats.failedTasks,
-      memoryUsage: 0,
-      batteryImpact: 'low',
-    };
+    if (Platform.OS !== 'android') {
+      return {
+        uptime: 0,
+        tasksExecuted: 0,
+        tasksSucceeded: 0,
+        tasksFailed: 0,
+        memoryUsage: 0,
+        batteryImpact: 'low',
+      };
+    }
+
+    return RNForegroundService.getServiceMetrics();
+  }
+
+  /**
+   * Get counters of the coalescing notification update pipeline
+   */
+  async getNotificationUpdateStats(): Promise<NotificationUpdateStats> {
+    if (Platform.OS !== 'android') {
+      return { submitted: 0, posted: 0, coalesced: 0, dropped: 0, sent: 0, skipped: 0 };
+    }
+
+    return RNForegroundService.getNotificationUpdateStats();
+  }
+
+  /**
+   * Get circuit breaker states and retry progress of the native scheduler
+   */
+  async getRetryState(): Promise<RetryState> {
+    if (Platform.OS !== 'android') {
+      return { breakers: {}, tasks: {} };
+    }
+
+    return RNForegroundService.getRetryState();
   }
 
   /**
@@ -337,12 +434,16 @@ class ForegroundServiceClass implements ForegroundServiceModule {
     }
     
     AppRegistry.registerHeadlessTask(taskName, () => task);
+    // Let the native headless runner know the task can be started by name
+    RNForegroundService.registerForegroundTask(taskName).catch((error: unknown) => {
+      console.error(`Failed to register task ${taskName}:`, error);
+    });
   }
 
   /**
-   * Run a registered task with enhanced error handling
+   * Run a registered task natively; delay, loopDelay and onLoop are honored by the service
    */
-  async runTask(taskConfig: { taskName: string; delay?: number; loopDelay?: number; onLoop?: boolean }): Promise<void> {
+  async runTask(taskConfig: { taskName: string; delay?: number; loopDelay?: number; onLoop?: boolean; timeout?: number; payload?: string }): Promise<void> {
     if (Platform.OS !== 'android') {
       return;
     }
@@ -354,6 +455,21 @@ class ForegroundServiceClass implements ForegroundServiceModule {
     }
   }
 
+  /**
+   * Stop a running or looping headless task
+   */
+  async stopTask(taskName: string): Promise<void> {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    try {
+      await RNForegroundService.stopTask(taskName);
+    } catch (error) {
+      throw new Error(`Failed to stop task: ${error}`);
+    }
+  }
+
   /**
    * Cancel a specific notification with enhanced error handling
    */
@@ -369,6 +485,135 @@ class ForegroundServiceClass implements ForegroundServiceModule {
     }
   }
 
+  /**
+   * Persist a headless task with WorkManager
+   */
+  async enqueueWork(config: WorkConfig): Promise<string> {
+    if (Platform.OS !== 'android') {
+      throw new Error('enqueueWork is only supported on Android');
+    }
+
+    try {
+      return await RNForegroundService.enqueueWork(config);
+    } catch (error) {
+      throw new Error(`Failed to enqueue work: ${error}`);
+    }
+  }
+
+  /**
+   * Enqueue a unique chain of one-time work
+   */
+  async enqueueWorkChain(
+    uniqueName: string,
+    configs: WorkConfig[],
+    existingWorkPolicy?: 'keep' | 'replace' | 'append'
+  ): Promise<string[]> {
+    if (Platform.OS !== 'android') {
+      throw new Error('enqueueWorkChain is only supported on Android');
+    }
+
+    try {
+      return await RNForegroundService.enqueueWorkChain(uniqueName, configs, existingWorkPolicy ?? null);
+    } catch (error) {
+      throw new Error(`Failed to enqueue work chain: ${error}`);
+    }
+  }
+
+  /**
+   * Cancel unique work by name
+   */
+  async cancelWork(uniqueName: string): Promise<void> {
+    if (Platform.OS !== 'android') {
+      return;
+    }
+
+    await RNForegroundService.cancelWork(uniqueName);
+  }
+
+  /**
+   * Get the state of unique work by name
+   */
+  async getWorkInfo(uniqueName: string): Promise<WorkInfo[]> {
+    if (Platform.OS !== 'android') {
+      return [];
+    }
+
+    return RNForegroundService.getWorkInfo(uniqueName);
+  }
+
+  /**
+   * Store a large task input natively. Pass the handle as `payload` to runTask or
+   * enqueueWork; the task receives `payload` and `payloadUri` in its data.
+   */
+  async createPayload(data: string): Promise<PayloadInfo> {
+    if (Platform.OS !== 'android') {
+      throw new Error('createPayload is only supported on Android');
+    }
+
+    return RNForegroundService.createPayload(data);
+  }
+
+  /**
+   * Size and file URI of a stored payload
+   */
+  async getPayloadInfo(handle: string): Promise<PayloadInfo> {
+    if (Platform.OS !== 'android') {
+      throw new Error('getPayloadInfo is only supported on Android');
+    }
+
+    return RNForegroundService.getPayloadInfo(handle);
+  }
+
+  /**
+   * Read a stored payload as a string
+   */
+  async readPayload(handle: string): Promise<string> {
+    if (Platform.OS !== 'android') {
+      throw new Error('readPayload is only supported on Android');
+    }
+
+    return RNForegroundService.readPayload(handle);
+  }
+
+  /**
+   * Hand a payload back as the result of taskName. Listeners get { taskName, handle,
+   * uri, size } through onTaskResult, and read the file instead of the bridge carrying it.
+   */
+  async publishTaskResult(taskName: string, handle: string): Promise<void> {
+    if (Platform.OS !== 'android') {
+      throw new Error('publishTaskResult is only supported on Android');
+    }
+
+    return RNForegroundService.publishTaskResult(taskName, handle);
+  }
+
+  /**
+   * Delete a stored payload
+   */
+  async releasePayload(handle: string): Promise<boolean> {
+    if (Platform.OS !== 'android') {
+      return false;
+    }
+
+    return RNForegroundService.releasePayload(handle);
+  }
+
+  /**
+   * Apply several operations in one bridge call. Failures are reported per op
+   * instead of rejecting the whole batch.
+   */
+  async executeBatch(ops: BatchOperation[]): Promise<BatchResult[]> {
+    if (Platform.OS !== 'android') {
+      return ops.map(() => ({ ok: true }));
+    }
+
+    try {
+      return await RNForegroundService.executeBatch(ops);
+    } catch (error) {
+      throw new Error(`Failed to execute batch: ${error}`);
+    }
+  }
+
   /**
    * Task Manager - Advanced task management
    */
@@ -0,0 +1,90 @@
+import { NativeEventEmitter, Platform } from 'react-native';
+import type { EmitterSubscription } from 'react-native';
+import { getRNForegroundServiceNative } from './native';
+
+type Handler = (payload: any) => void;
+
+interface NativeEventBatch {
+  events: Array<{ name: string; params: unknown }>;
+  dropped: number;
+}
+
+/**
+ * Single JS endpoint for native events. Native batches regular events into one onEvents
+ * emission per frame and sends critical ones (errors, stops) under their own name; this
+ * hub fans both out to listeners registered by event name.
+ */
+export class NativeEventHub {
+  private readonly emitter: NativeEventEmitter;
+  private readonly handlers: Map<string, Set<Handler>> = new Map();
+  private readonly directSubscriptions: Map<string, EmitterSubscription> = new Map();
+
+  constructor(nativeModule: any) {
+    this.emitter = new NativeEventEmitter(nativeModule);
+    this.emitter.addListener('onEvents', (batch: NativeEventBatch) => this.dispatchBatch(batch));
+  }
+
+  addListener(eventName: string, handler: Handler): { remove(): void } {
+    let handlers = this.handlers.get(eventName);
+    if (!handlers) {
+      handlers = new Set();
+      this.handlers.set(eventName, handlers);
+      // Critical events arrive unbatched under their own name
+      this.directSubscriptions.set(
+        eventName,
+        this.emitter.addListener(eventName, (payload: unknown) => this.dispatch(eventName, payload))
+      );
+    }
+    handlers.add(handler);
+
+    return {
+      remove: () => {
+        handlers!.delete(handler);
+        // Last handler gone: drop the direct subscription too, unless the set was replaced
+        if (handlers!.size === 0 && this.handlers.get(eventName) === handlers) {
+          this.removeAllListeners(eventName);
+        }
+      },
+    };
+  }
+
+  removeAllListeners(eventName: string): void {
+    this.handlers.delete(eventName);
+    this.directSubscriptions.get(eventName)?.remove();
+    this.directSubscriptions.delete(eventName);
+  }
+
+  private dispatchBatch(batch: NativeEventBatch): void {
+    if (batch.dropped > 0) {
+      console.warn(`RNForegroundService: ${batch.dropped} native events were dropped`);
+    }
+    batch.events.forEach(({ name, params }) => this.dispatch(name, params));
+  }
+
+  private dispatch(eventName: string, payload: unknown): void {
+    this.handlers.get(eventName)?.forEach(handler => {
+      try {
+        handler(payload);
+      } catch (e) {
+        console.error(`Error in ${eventName} listener:`, e);
+      }
+    });
+  }
+}
+
+let hub: NativeEventHub | null = null;
+
+/**
+ * Shared hub, or null where native events are not available
+ */
+export function getNativeEventHub(): NativeEventHub | null {
+  if (hub) {
+    return hub;
+  }
+  const nativeModule = Platform.OS === 'android' ? getRNForegroundServiceNative() : null;
+  if (!nativeModule) {
+    return null;
+  }
+  hub = new NativeEventHub(nativeModule);
+  return hub;
+}
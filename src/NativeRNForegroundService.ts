@@ -0,0 +1,75 @@
+import type { TurboModule } from 'react-native';
+import { TurboModuleRegistry } from 'react-native';
+
+/**
+ * Codegen spec for the native module. Maps are typed as Object and numbers as double on
+ * the Java side; the richer types live in index.ts.
+ */
+export interface Spec extends TurboModule {
+  // Service lifecycle
+  startService(options: Object): Promise<void>;
+  stopService(taskName: string | null): Promise<void>;
+  stopServiceAll(): Promise<void>;
+  updateService(options: Object): Promise<void>;
+  isServiceRunning(): Promise<boolean>;
+  getServiceCount(): Promise<number>;
+  getServiceStatus(): Promise<Object>;
+  getServiceMetrics(): Promise<Object>;
+  getNotificationUpdateStats(): Promise<Object>;
+  getRetryState(): Promise<Object>;
+  cancelNotification(notificationId: number): Promise<void>;
+  executeBatch(ops: Object[]): Promise<Object[]>;
+
+  // Synchronous reads served from in-memory service state
+  isServiceRunningSync(): boolean;
+  getServiceCountSync(): number;
+  getServiceStatusSync(): Object;
+  checkPermissionSync(): boolean;
+
+  // Progress channel written with primitive sync calls
+  openProgressChannelSync(taskName: string): number;
+  writeProgressSync(channel: number, curr: number, max: number): boolean;
+  closeProgressChannelSync(channel: number): boolean;
+
+  // Permissions and battery
+  checkPermission(): Promise<boolean>;
+  requestPermission(): Promise<boolean>;
+  checkNotificationPermission(): Promise<boolean>;
+  checkBatteryOptimization(): Promise<boolean>;
+  requestBatteryOptimizationExemption(): Promise<boolean>;
+
+  // Headless tasks
+  registerForegroundTask(taskName: string): Promise<void>;
+  runTask(taskConfig: Object): Promise<void>;
+  stopTask(taskName: string): Promise<void>;
+
+  // Native task scheduler
+  addTask(config: Object): Promise<string>;
+  updateTask(taskId: string, config: Object): Promise<void>;
+  pauseTask(taskId: string): Promise<void>;
+  resumeTask(taskId: string): Promise<void>;
+  removeTask(taskId: string): Promise<void>;
+  removeAllTasks(): Promise<void>;
+  completeTask(taskId: string, success: boolean, attempt: number): Promise<Object | null>;
+  releaseTask(taskId: string, attempt: number): Promise<void>;
+  getAllTasks(): Promise<Object>;
+
+  // WorkManager-backed work
+  enqueueWork(config: Object): Promise<string>;
+  enqueueWorkChain(uniqueName: string, configs: Object[], existingWorkPolicy: string | null): Promise<string[]>;
+  cancelWork(uniqueName: string): Promise<void>;
+  getWorkInfo(uniqueName: string): Promise<Object[]>;
+
+  // File-backed task payloads
+  createPayload(data: string): Promise<Object>;
+  getPayloadInfo(handle: string): Promise<Object>;
+  readPayload(handle: string): Promise<string>;
+  releasePayload(handle: string): Promise<boolean>;
+  publishTaskResult(taskName: string, handle: string): Promise<void>;
+
+  // NativeEventEmitter support
+  addListener(eventName: string): void;
+  removeListeners(count: number): void;
+}
+
+export default TurboModuleRegistry.get<Spec>('RNForegroundService');
@@ -1,5 +1,7 @@
-import { AppRegistry } from 'react-native';
-import type { TaskConfig, TaskStatus } from './index';
+import { AppRegistry, Platform } from 'react-native';
+import type { BatchOperation, BatchResult, TaskConfig, TaskStatus } from './index';
+import { getRNForegroundServiceNative } from './native';
+import { getNativeEventHub } from './NativeEvents';
 
 interface Task {
   taskId: string;
@@ -9,14 +11,32 @@ interface Task {
   executionCount: number;
   status: 'pending' | 'running' | 'paused' | 'completed' | 'failed';
   lastExecutionTime?: number;
-  retryAttempts: number;
+  // Native attempt number of the run in progress, undefined when none or abandoned
+  attempt?: number;
 }
 
+interface NativeTaskStatus {
+  taskId: string;
+  status: Task['status'];
+  executionCount: number;
+  nextExecutionTime?: number;
+}
+
+interface NativeTaskTimeout extends NativeTaskStatus {
+  attempt: number;
+  deadline: 'attempt' | 'total';
+}
+
+/**
+ * Thin proxy over the native deadline scheduler. Scheduling, looping and retries live in
+ * ForegroundService on the Android side; JS only keeps the task functions and a status
+ * mirror, and runs a task when native emits onTaskExecute for it.
+ */
 export class TaskManagerClass {
   private readonly tasks: Map<string, Task> = new Map();
-  private taskRunner: number | null = null;
-  private isRunning: boolean = false;
-  private readonly samplingInterval: number = 500; // ms
+  private subscriptions: { remove(): void }[] = [];
+  // Scheduling ops issued in the same tick, sent to native as one executeBatch call
+  private pendingOps: BatchOperation[] = [];
 
   /**
    * Generate a unique task ID
@@ -34,20 +54,15 @@ export class TaskManagerClass {
     const task: Task = {
       taskId,
       task: taskFn,
-      config: {
-        ...config,
-        priority: config.priority ?? 'normal',
-        retryCount: config.retryCount ?? 0,
-        timeout: config.timeout ?? 30000
-      },
+      config: this.normalizeConfig(config),
       nextExecutionTime: Date.now() + (config.delay ?? 0),
       executionCount: 0,
-      status: 'pending',
-      retryAttempts: 0
+      status: 'pending'
     };
 
     this.tasks.set(taskId, task);
-    this.startTaskRunner();
+    this.subscribe();
+    this.enqueue({ op: 'addTask', config: { ...this.toNativeConfig(task.config), taskId } });
 
     return taskId;
   }
@@ -57,9 +72,10 @@ export class TaskManagerClass {
    */
   removeTask(taskId: string): void {
     this.tasks.delete(taskId);
+    this.enqueue({ op: 'removeTask', taskId });
     
     if (this.tasks.size === 0) {
-      this.stopTaskRunner();
+      this.unsubscribe();
     }
   }
 
@@ -77,17 +93,13 @@ export class TaskManagerClass {
     const updatedTask: Task = {
       ...existingTask,
       task: taskFn,
-      config: {
-        ...config,
-        priority: config.priority ?? 'normal',
-        retryCount: config.retryCount ?? 0,
-        timeout: config.timeout ?? 30000
-      },
+      config: this.normalizeConfig(config),
       nextExecutionTime: Date.now() + (config.delay ?? 0),
       status: 'pending'
     };
 
     this.tasks.set(taskId, updatedTask);
+    this.enqueue({ op: 'updateTask', taskId, config: this.toNativeConfig(updatedTask.config) });
   }
 
   /**
@@ -97,7 +109,7 @@ export class TaskManagerClass {
     const task = this.tasks.get(taskId);
     if (task && task.status !== 'paused') {
       task.status = 'paused';
-      this.tasks.set(taskId, task);
+      this.enqueue({ op: 'pauseTask', taskId });
     }
   }
 
@@ -109,7 +121,7 @@ export class TaskManagerClass {
     if (task && task.status === 'paused') {
       task.status = 'pending';
       task.nextExecutionTime = Date.now() + (task.config.delay ?? 0);
-      this.tasks.set(taskId, task);
+      this.enqueue({ op: 'resumeTask', taskId });
     }
   }
 
@@ -128,14 +140,7 @@ export class TaskManagerClass {
     const result: Record<string, TaskStatus> = {};
     
     for (const [taskId, task] of this.tasks) {
-      result[taskId] = {
-        taskId: task.taskId,
-        isRunning: task.status === 'running',
-        executionCount: task.executionCount,
-        ...(task.lastExecutionTime !== undefined && { lastExecutionTime: task.lastExecutionTime }),
-        ...(task.nextExecutionTime !== undefined && { nextExecutionTime: task.nextExecutionTime }),
-        status: task.status
-      };
+      result[taskId] = this.toTaskStatus(task);
     }
     
     return result;
@@ -148,6 +153,27 @@ export class TaskManagerClass {
     const task = this.tasks.get(taskId);
     if (!task) return null;
 
+    return this.toTaskStatus(task);
+  }
+
+  /**
+   * Remove all tasks
+   */
+  removeAllTasks(): void {
+    this.tasks.clear();
+    this.enqueue({ op: 'removeAllTasks' });
+    this.unsubscribe();
+  }
+
+  /**
+   * Limit how many tasks native dispatches at once (default 4). Due tasks beyond the
+   * limit wait, highest priority first, with long waiters aging up.
+   */
+  setMaxConcurrency(limit: number): void {
+    this.enqueue({ op: 'setMaxConcurrentTasks', limit: Math.max(1, Math.floor(limit)) });
+  }
+
+  private toTaskStatus(task: Task): TaskStatus {
     return {
       taskId: task.taskId,
       isRunning: task.status === 'running',
@@ -158,124 +184,163 @@ export class TaskManagerClass {
     };
   }
 
-  /**
-   * Remove all tasks
-   */
-  removeAllTasks(): void {
-    this.tasks.clear();
-    this.stopTaskRunner();
+  private normalizeConfig(config: TaskConfig): TaskConfig {
+    return {
+      ...config,
+      priority: config.priority ?? 'normal',
+      retryCount: config.retryCount ?? 0,
+      timeout: config.timeout ?? 30000
+    };
   }
 
   /**
-   * Start the task runner
+   * Strip callbacks so only serializable scheduling fields cross the bridge
    */
-  private startTaskRunner(): void {
-    if (this.isRunning) return;
-
-    this.isRunning = true;
-    this.taskRunner = setInterval(() => {
-      this.executeTasksCycle();
-    }, this.samplingInterval) as unknown as number;
+  private toNativeConfig(config: TaskConfig): Record<string, unknown> {
+    return {
+      delay: config.delay ?? 0,
+      onLoop: config.onLoop,
+      priority: config.priority,
+      retryCount: config.retryCount,
+      timeout: config.timeout,
+      totalTimeout: config.totalTimeout,
+      retryPolicy: config.retryPolicy,
+      circuitBreaker: config.circuitBreaker
+    };
   }
 
   /**
-   * Stop the task runner
+   * Queue a scheduling op; everything queued in the current tick is flushed in one
+   * bridge crossing, so a burst of addTask calls at startup costs a single call.
    */
-  private stopTaskRunner(): void {
-    if (this.taskRunner) {
-      clearInterval(this.taskRunner);
-      this.taskRunner = null;
+  private enqueue(op: BatchOperation): void {
+    this.pendingOps.push(op);
+    if (this.pendingOps.length === 1) {
+      Promise.resolve().then(() => this.flush());
     }
-    this.isRunning = false;
   }
 
-  /**
-   * Execute tasks that are ready to run
-   */
-  private async executeTasksCycle(): Promise<void> {
-    if (!this.isRunning) return;
+  private flush(): void {
+    const ops = this.pendingOps;
+    this.pendingOps = [];
+    if (ops.length === 0) return;
 
-    const now = Date.now();
-    const readyTasks = Array.from(this.tasks.values())
-      .filter(task => this.shouldExecuteTask(task, now))
-      .sort((a, b) => this.getTaskPriority(a.config.priority) - this.getTaskPriority(b.config.priority));
+    const RNForegroundService = Platform.OS === 'android' ? getRNForegroundServiceNative() : null;
+    if (!RNForegroundService) {
+      console.warn('TaskManager is only supported on Android');
+      return;
+    }
 
-    const promises = readyTasks.map(task => this.executeTask(task));
-    await Promise.all(promises.map(p => p.catch(e => console.error('Task execution error:', e))));
+    RNForegroundService.executeBatch(ops).then((results: BatchResult[]) => {
+      results.forEach((result, i) => {
+        if (!result.ok) {
+          console.error(`TaskManager.${ops[i].op} failed:`, result.message);
+        }
+      });
+    }).catch((e: unknown) => console.error('TaskManager batch failed:', e));
   }
 
-  /**
-   * Check if a task should be executed
-   */
-  private shouldExecuteTask(task: Task, now: number): boolean {
-    return task.status === 'pending' && now >= task.nextExecutionTime;
+  private callNative(method: string, ...args: unknown[]): void {
+    const RNForegroundService = Platform.OS === 'android' ? getRNForegroundServiceNative() : null;
+    if (!RNForegroundService) {
+      console.warn('TaskManager is only supported on Android');
+      return;
+    }
+
+    RNForegroundService[method](...args).catch((e: unknown) =>
+      console.error(`TaskManager.${method} failed:`, e)
+    );
   }
 
   /**
-   * Get numeric priority value for sorting
+   * Listen for due tasks coming from the native scheduler
    */
-  private getTaskPriority(priority?: string): number {
-    switch (priority) {
-      case 'high': return 1;
-      case 'normal': return 2;
-      case 'low': return 3;
-      default: return 2;
-    }
+  private subscribe(): void {
+    const hub = getNativeEventHub();
+    if (this.subscriptions.length > 0 || !hub) return;
+
+    this.subscriptions = [
+      hub.addListener('onTaskExecute', (event: { taskId: string; executionCount: number }) => {
+        this.executeTask(event.taskId, event.executionCount)
+          .catch(e => console.error('Task execution error:', e));
+      }),
+      hub.addListener('onTaskTimeout', (event: NativeTaskTimeout) => this.handleTimeout(event)),
+    ];
+  }
+
+  private unsubscribe(): void {
+    this.subscriptions.forEach(subscription => subscription.remove());
+    this.subscriptions = [];
   }
 
   /**
-   * Execute a single task
+   * Execute a single task and report its outcome to the native scheduler
    */
-  private async executeTask(task: Task): Promise<void> {
+  private async executeTask(taskId: string, attempt: number): Promise<void> {
+    const task = this.tasks.get(taskId);
+    if (!task) {
+      // Native may have recovered the task from its journal after a restart. Hand the
+      // attempt back so it doesn't hold a slot; native keeps the task until JS adds it
+      // again under the same taskId
+      this.callNative('releaseTask', taskId, attempt);
+      return;
+    }
+
     task.status = 'running';
     task.lastExecutionTime = Date.now();
     task.executionCount++;
-    this.tasks.set(task.taskId, task);
+    task.attempt = attempt;
 
+    // The native watchdog enforces config.timeout, no JS timer is needed
+    let error: Error | null = null;
     try {
-      // Execute task with timeout
-      const timeoutPromise = new Promise<never>((_, reject) => {
-        setTimeout(() => reject(new Error('Task timeout')), task.config.timeout);
-      });
-
-      const taskPromise = Promise.resolve(task.task());
-      await Promise.race([taskPromise, timeoutPromise]);
-
-      // Task succeeded
-      task.status = task.config.onLoop ? 'pending' : 'completed';
-      
-      if (task.config.onLoop) {
-        task.nextExecutionTime = Date.now() + task.config.delay;
-      } else {
-        // Remove one-time task after completion
-        this.tasks.delete(task.taskId);
-      }
+      await task.task();
+    } catch (e) {
+      error = e as Error;
+    }
 
-      // Call success callback
-      if (task.config.onSuccess) {
-        task.config.onSuccess();
+    if (task.attempt !== attempt) {
+      // Timed out natively and already accounted for
+      return;
+    }
+    task.attempt = undefined;
+
+    const result: NativeTaskStatus | null =
+      await getRNForegroundServiceNative().completeTask(taskId, error === null, attempt);
+
+    if (result === null || result.status === 'completed') {
+      // One-time task finished, native has already dropped it
+      this.tasks.delete(taskId);
+    } else {
+      task.status = result.status;
+      if (result.nextExecutionTime !== undefined) {
+        task.nextExecutionTime = result.nextExecutionTime;
       }
+    }
 
-    } catch (error) {
-      // Task failed
-      task.retryAttempts++;
-      
-      if (task.retryAttempts <= (task.config.retryCount ?? 0)) {
-        // Retry the task
-        task.status = 'pending';
-        task.nextExecutionTime = Date.now() + task.config.delay;
-      } else {
-        // Max retries reached
-        task.status = 'failed';
-        
-        // Call error callback
-        if (task.config.onError) {
-          task.config.onError(error as Error);
-        }
-      }
+    if (error === null) {
+      task.config.onSuccess?.();
+    } else if (result?.status === 'failed') {
+      // Max retries reached
+      task.config.onError?.(error);
     }
+  }
 
-    this.tasks.set(task.taskId, task);
+  /**
+   * Abandon an attempt the native watchdog gave up on and mirror the resulting state
+   */
+  private handleTimeout(event: NativeTaskTimeout): void {
+    const task = this.tasks.get(event.taskId);
+    if (!task || task.attempt !== event.attempt) return;
+
+    task.attempt = undefined;
+    task.status = event.status;
+    if (event.nextExecutionTime !== undefined) {
+      task.nextExecutionTime = event.nextExecutionTime;
+    }
+    if (event.status === 'failed') {
+      task.config.onError?.(new Error(event.deadline === 'total' ? 'Task run timeout' : 'Task timeout'));
+    }
   }
 
   /**
@@ -283,6 +348,7 @@ export class TaskManagerClass {
    */
   registerForegroundTask(taskName: string, task: (taskData: any) => Promise<void>): void {
     AppRegistry.registerHeadlessTask(taskName, () => task);
+    this.callNative('registerForegroundTask', taskName);
   }
 
   /**
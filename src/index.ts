@@ -13,12 +13,30 @@ export interface TaskConfig {
   onLoop: boolean;
   priority?: 'low' | 'normal' | 'high';
   retryCount?: number;
-  timeout?: number;
+  timeout?: number; // per attempt, enforced natively (default 30000)
+  totalTimeout?: number; // for a whole run including retries; the task fails once it passes
+  retryPolicy?: RetryPolicy;
+  circuitBreaker?: CircuitBreakerConfig;
   onSuccess?: () => void;
   onError?: (error: Error) => void;
   onProgress?: (progress: number) => void;
 }
 
+// Native retry timing for failed attempts
+export interface RetryPolicy {
+  backoff?: 'exponential' | 'fixed'; // exponential uses full jitter (default)
+  initialDelay?: number; // default: the task delay, at least 1000
+  maxDelay?: number; // cap of a single exponential delay (default 300000)
+  maxElapsed?: number; // no retries once this long has passed since the first failure
+}
+
+// Breaker shared by every task with the same name; retries stop while it is open
+export interface CircuitBreakerConfig {
+  name?: string; // default: the taskId
+  failureThreshold?: number; // consecutive failures that open it (default 5)
+  resetTimeout?: number; // ms until one trial retry is let through (default 60000)
+}
+
 // Task status interface
 export interface TaskStatus {
   taskId: string;
@@ -31,12 +49,161 @@ export interface TaskStatus {
 
 // Service metrics interface
 export interface ServiceMetrics {
-  uptime: number;
+  uptime: number; // ms since the native service was created
   tasksExecuted: number;
   tasksSucceeded: number;
   tasksFailed: number;
-  memoryUsage: number;
+  tasksRetried?: number;
+  memoryUsage: number; // process PSS in bytes
+  cpuTime?: number; // process CPU time (user + system) in ms
   batteryImpact: 'low' | 'medium' | 'high';
+  eventsDropped?: number; // native events lost to event buffer overflow
+  wakeLockHeldTime?: number; // total ms task wake locks were held
+  wakeLocks?: { [task: string]: WakeLockStats }; // keyed by task name or taskId
+  backgroundWorker?: BackgroundWorkerStats;
+  watchdogDeadlines?: number; // deadlines currently tracked by the native watchdog
+  queueWait?: { high: LatencyHistogram; normal: LatencyHistogram; low: LatencyHistogram };
+}
+
+// Fixed-bucket latency histogram in ms; percentiles are bucket upper bounds
+export interface LatencyHistogram {
+  count: number;
+  max: number;
+  p50: number;
+  p95: number;
+  p99: number;
+  buckets: { le: number; count: number }[]; // le -1 is the open-ended last bucket
+}
+
+// Native background worker counters (snapshot writes, payload cleanup)
+export interface BackgroundWorkerStats {
+  queued: number;
+  completed: number;
+  rejected: number; // refused because the queue was full
+}
+
+// Wake lock accounting for one task
+export interface WakeLockStats {
+  heldTime: number; // cumulative ms, including the current hold
+  acquisitions: number;
+  timeouts: number; // holds force-released by the hard timeout
+  held: boolean;
+}
+
+// Notification update pipeline counters
+export interface NotificationUpdateStats {
+  submitted: number;
+  posted: number;
+  coalesced: number;
+  dropped: number;
+  sent?: number; // notify() calls made
+  skipped?: number; // renders skipped because nothing visible changed
+  queueDepth?: number; // jobs waiting on the native render thread
+  maxQueueDepth?: number;
+  renderLatency?: LatencyHistogram; // build plus notify() time per post
+}
+
+// Native retry engine state
+export interface RetryState {
+  breakers: Record<string, {
+    state: 'closed' | 'open' | 'halfOpen';
+    consecutiveFailures: number;
+    failureThreshold: number;
+    trips: number;
+    halfOpenAt?: number;
+  }>;
+  tasks: Record<string, {
+    status: TaskStatus['status'];
+    retryAttempts: number;
+    retryCount: number;
+    circuitBreaker?: string;
+    nextRetryAt?: number;
+  }>;
+}
+
+// Service state as tracked natively; timestamps are epoch ms
+export interface NativeServiceStatus {
+  isRunning: boolean;
+  state: 'idle' | 'created' | 'foreground' | 'stopping' | 'destroyed';
+  startTime?: number;
+  uptime?: number;
+  serviceType?: string;
+  notificationId?: number;
+  serviceCount?: number;
+  // Every logical service with its own notification, in start order
+  sessions?: Array<{ taskName: string; notificationId: number }>;
+  foregroundTime?: number;
+  stopTime?: number;
+  destroyTime?: number;
+}
+
+// Native status plus the number of tasks registered with the TaskManager
+export interface ServiceStatus extends NativeServiceStatus {
+  taskCount?: number;
+}
+
+// Conditions WorkManager waits for before running work
+export interface WorkConstraints {
+  network?: 'none' | 'connected' | 'unmetered' | 'notRoaming' | 'metered';
+  charging?: boolean;
+  batteryNotLow?: boolean;
+  storageNotLow?: boolean;
+  deviceIdle?: boolean;
+}
+
+// Durable work request; taskName is a task registered with registerForegroundTask
+export interface WorkConfig {
+  taskName: string;
+  uniqueName?: string;
+  existingWorkPolicy?: 'keep' | 'replace' | 'append'; // 'append' is one-time work only
+  constraints?: WorkConstraints;
+  initialDelay?: number; // ms
+  repeatInterval?: number; // ms, at least 15 minutes; makes the work periodic
+  backoffPolicy?: 'exponential' | 'linear';
+  backoffDelay?: number; // ms
+  timeout?: number; // ms
+  data?: Record<string, string | number | boolean>;
+  payload?: string; // PayloadInfo.handle, for input too large for data (10 KB)
+  tags?: string[];
+}
+
+// A task payload stored natively in a file; only the handle is passed around
+export interface PayloadInfo {
+  handle: string;
+  uri: string; // file:// URI, readable without going through the bridge
+  size: number; // bytes
+}
+
+// A task result stored as a payload, delivered to onTaskResult listeners
+export interface TaskResult extends PayloadInfo {
+  taskName: string;
+}
+
+export interface WorkInfo {
+  id: string;
+  state: 'enqueued' | 'running' | 'succeeded' | 'failed' | 'blocked' | 'cancelled';
+  runAttemptCount: number;
+}
+
+// One operation of an executeBatch call; ops are applied in order in a single native pass
+export type BatchOperation =
+  | { op: 'start'; options: ForegroundServiceOptions }
+  | { op: 'update'; options: Partial<ForegroundServiceOptions> }
+  | { op: 'stop'; taskName?: string }
+  | { op: 'cancel'; notificationId: number }
+  | { op: 'runTask'; config: { taskName: string; delay?: number; loopDelay?: number; onLoop?: boolean; timeout?: number; payload?: string } }
+  | { op: 'addTask'; config: Record<string, unknown> & { taskId: string } }
+  | { op: 'updateTask'; taskId: string; config: Record<string, unknown> }
+  | { op: 'removeTask' | 'pauseTask' | 'resumeTask'; taskId: string }
+  | { op: 'removeAllTasks' }
+  | { op: 'setMaxConcurrentTasks'; limit: number };
+
+// Per-op outcome of executeBatch; value carries the taskId for addTask
+export interface BatchResult {
+  ok: boolean;
+  value?: string;
+  code?: string;
+  message?: string;
 }
 
 export interface ForegroundServiceOptions {
@@ -78,6 +245,10 @@ export interface ForegroundServiceOptions {
   foregroundServiceType?: string;
   autoStop?: boolean; // Auto-stop service after task completion
   timeoutMs?: number; // Service timeout for safety
+  maxUpdateRate?: number; // Max notification refreshes per second, extra updates are coalesced (default 5)
+  progressStep?: number; // Progress changes below this percentage are not re-posted (default 1)
+  progressTemplate?: string; // Replaces taskDesc, filled natively: {current} {max} {percent} {rate} {eta}
+  progressRateUnit?: 'count' | 'bytes'; // How {rate} is formatted (default 'count')
 }
 
 // Enhanced service event listener interface
@@ -89,6 +260,18 @@ export interface ForegroundServiceEventListener {
   onActionPress?: (actionId: string) => void;
   onTaskComplete?: (taskId: string) => void;
   onTaskError?: (taskId: string, error: string) => void;
+  onTaskTimeout?: (event: TaskTimeoutEvent) => void;
+  onServiceTimeout?: (taskName: string) => void;
+  onTaskResult?: (result: TaskResult) => void;
+}
+
+// Emitted when the native watchdog gives up on a task
+export interface TaskTimeoutEvent {
+  taskId?: string; // TaskManager tasks
+  taskName?: string; // headless tasks
+  deadline: 'attempt' | 'total';
+  attempt?: number;
+  status?: TaskStatus['status'];
 }
 
 // Task manager interface
@@ -102,6 +285,7 @@ export interface TaskManagerInterface {
   getAllTasks(): Record<string, TaskStatus>;
   getTaskStatus(taskId: string): TaskStatus | null;
   removeAllTasks(): void;
+  setMaxConcurrency(limit: number): void;
   getStats(): {
     totalTasks: number;
     runningTasks: number;
@@ -118,9 +302,9 @@ export interface ForegroundServiceModule {
   startService(options: ForegroundServiceOptions): Promise<void>;
   
   /**
-   * Stop the foreground service
+   * Stop the foreground service, or only the logical service started with taskName
    */
-  stopService(): Promise<void>;
+  stopService(taskName?: string): Promise<void>;
   
   /**
    * Stop all service instances (force stop)
@@ -138,9 +322,25 @@ export interface ForegroundServiceModule {
   isServiceRunning(): Promise<boolean>;
   
   /**
-   * Get service instance count
+   * Get the number of logical services (one per taskName) currently running
    */
   getServiceCount(): Promise<number>;
+
+  /**
+   * Synchronous reads of native in-memory state. Over JSI on the New Architecture;
+   * on the legacy bridge they block the JS thread for a round trip.
+   */
+  isServiceRunningSync(): boolean;
+  getServiceStatusSync(): NativeServiceStatus;
+  getServiceCountSync(): number;
+  checkPermissionSync(): boolean;
+
+  /**
+   * Progress channel: sync primitive writes, sampled by the service at its refresh rate
+   */
+  openProgressChannelSync(taskName: string): number;
+  writeProgressSync(channel: number, curr: number, max: number): boolean;
+  closeProgressChannelSync(channel: number): void;
   
   /**
    * Check if app has all required permissions (foreground service + notifications)
@@ -175,20 +375,23 @@ export interface ForegroundServiceModule {
   /**
    * Get current service status with detailed information
    */
-  getServiceStatus(): Promise<{
-    isRunning: boolean;
-    startTime?: number;
-    serviceType?: string;
-    notificationId?: number;
-    uptime?: number;
-    taskCount?: number;
-  }>;
+  getServiceStatus(): Promise<ServiceStatus>;
   
   /**
    * Get service performance metrics
    */
   getServiceMetrics(): Promise<ServiceMetrics>;
   
+  /**
+   * Get counters of the coalescing notification update pipeline
+   */
+  getNotificationUpdateStats(): Promise<NotificationUpdateStats>;
+
+  /**
+   * Get circuit breaker states and retry progress of the native scheduler
+   */
+  getRetryState(): Promise<RetryState>;
+  
   /**
    * Request battery optimization exemption (required for long-running services)
    */
@@ -202,12 +405,56 @@ export interface ForegroundServiceModule {
   /**
    * Run a registered task
    */
-  runTask(taskConfig: { taskName: string; delay?: number; loopDelay?: number; onLoop?: boolean }): Promise<void>;
+  runTask(taskConfig: { taskName: string; delay?: number; loopDelay?: number; onLoop?: boolean; timeout?: number; payload?: string }): Promise<void>;
+
+  /**
+   * Stop a running or looping headless task
+   */
+  stopTask(taskName: string): Promise<void>;
   
   /**
    * Cancel a specific notification
    */
   cancelNotification(notificationId: number): Promise<void>;
+
+  /**
+   * Persist a task with WorkManager; it survives process death and reboots and runs
+   * without a foreground service. Resolves with the work request id.
+   */
+  enqueueWork(config: WorkConfig): Promise<string>;
+
+  /**
+   * Enqueue one-time work as a unique chain, each step running after the previous succeeded
+   */
+  enqueueWorkChain(uniqueName: string, configs: WorkConfig[], existingWorkPolicy?: 'keep' | 'replace' | 'append'): Promise<string[]>;
+
+  /**
+   * Cancel unique work (or a chain) by name
+   */
+  cancelWork(uniqueName: string): Promise<void>;
+
+  /**
+   * Get the state of unique work by name
+   */
+  getWorkInfo(uniqueName: string): Promise<WorkInfo[]>;
+
+  /**
+   * Store a large task input in a native file and get a handle for runTask/enqueueWork
+   */
+  createPayload(data: string): Promise<PayloadInfo>;
+  getPayloadInfo(handle: string): Promise<PayloadInfo>;
+  readPayload(handle: string): Promise<string>;
+  releasePayload(handle: string): Promise<boolean>;
+
+  /**
+   * Deliver a payload as taskName's result to onTaskResult listeners
+   */
+  publishTaskResult(taskName: string, handle: string): Promise<void>;
+
+  /**
+   * Apply several service and task operations in one bridge call
+   */
+  executeBatch(ops: BatchOperation[]): Promise<BatchResult[]>;
   
   /**
    * Task Manager - Advanced task management
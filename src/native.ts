@@ -0,0 +1,25 @@
+import { NativeModules } from 'react-native';
+
+// Set by React Native when the New Architecture (TurboModules over JSI) is enabled
+// @ts-expect-error __turboModuleProxy is not declared on global
+const isTurboModuleEnabled: boolean = global.__turboModuleProxy != null;
+
+let nativeModule: any;
+let resolved = false;
+
+/**
+ * The native module for the running architecture: the codegen TurboModule on the New
+ * Architecture, the legacy bridge module otherwise. Undefined when the package isn't linked.
+ *
+ * Looked up on first use rather than at import: either lookup creates the native module,
+ * and most app sessions never touch it.
+ */
+export function getRNForegroundServiceNative(): any {
+  if (!resolved) {
+    nativeModule = isTurboModuleEnabled
+      ? require('./NativeRNForegroundService').default
+      : NativeModules.RNForegroundService;
+    resolved = true;
+  }
+  return nativeModule;
+}